@@ -1,14 +1,53 @@
 package org.example;
 
+import org.example.finder.SearchQuery;
 import org.example.finder.TextFinder;
+import org.example.server.SearchClient;
+import org.example.server.SearchDaemon;
 import org.example.utill.FileGenerator;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+
+        if ("--daemon".equals(args[0])) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : SearchDaemon.DEFAULT_PORT;
+            List<Path> roots = args.length > 2
+                    ? Arrays.stream(args, 2, args.length).map(Path::of).toList()
+                    : List.of(Path.of(""));
+
+            SearchDaemon searchDaemon = new SearchDaemon(port, Runtime.getRuntime().availableProcessors(),
+                    SearchDaemon.DEFAULT_TOKEN_DIRECTORY, roots);
+            searchDaemon.start();
+
+            System.out.printf("Listening on port %d %n", searchDaemon.getPort());
+            return;
+        }
+
+        if ("--client".equals(args[0])) {
+            SearchClient.search(Integer.parseInt(args[1]), args[3], args[2]).forEach(System.out::println);
+            return;
+        }
+
+        if ("--batch".equals(args[0])) {
+            List<SearchQuery> queries = Files.readAllLines(Path.of(args[2])).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(SearchQuery::parse)
+                    .toList();
+
+            List<List<Path>> results = TextFinder.findTextBatch(queries, args[1]);
+
+            for (int i = 0; i < queries.size(); i++) {
+                System.out.printf("# %s %n", queries.get(i).textToSearch());
+                results.get(i).forEach(f -> System.out.printf("%s %d %n",f,f.toFile().length()));
+            }
+            return;
+        }
 
         String path = args[0];
 
@@ -24,4 +63,4 @@ public class Main {
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,305 @@
+package org.example.cache;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The SearchCache class keeps directory listings and per-file search results between searches, so a long-running
+ * process does not re-list unchanged directories or re-read unchanged files. Directory listings are validated
+ * against the directory's modification time and file results against the file's modification time and size, both
+ * taken from a fresh stat on every walk. Both tables are bounded and evict the least recently used entry, and every
+ * file keeps the results of a bounded number of recently searched texts, so memory does not grow with the number of
+ * distinct texts a long-running process is asked for.
+ * <p>
+ * The class is thread-safe and is meant to be shared by concurrent searches. Both tables are split into segments
+ * with a lock of their own, so concurrent walks rarely wait for each other; eviction is least recently used within
+ * a segment.
+ */
+public class SearchCache {
+
+    /**
+     * The default maximum number of entries in each table.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1_000_000;
+
+    /**
+     * The default maximum number of texts whose results are kept for one file.
+     */
+    public static final int DEFAULT_MAX_TEXTS_PER_FILE = 32;
+
+    /**
+     * The maximum number of segments of each table, a power of two.
+     */
+    private static final int MAX_SEGMENTS = 64;
+
+    /**
+     * The cached directory listings, keyed by directory.
+     */
+    private final LruTable<Path, DirectoryListing> listings;
+    /**
+     * The cached per-file results, keyed by file.
+     */
+    private final LruTable<Path, FileSummary> files;
+    /**
+     * The maximum number of texts whose results are kept for one file.
+     */
+    private final int maxTextsPerFile;
+
+    /**
+     * Constructs a new SearchCache with {@link #DEFAULT_MAX_ENTRIES} entries per table.
+     */
+    public SearchCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a new SearchCache with the specified capacity and {@link #DEFAULT_MAX_TEXTS_PER_FILE} texts per file.
+     *
+     * @param maxEntries the maximum number of entries in each table
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public SearchCache(int maxEntries) {
+        this(maxEntries, DEFAULT_MAX_TEXTS_PER_FILE);
+    }
+
+    /**
+     * Constructs a new SearchCache with the specified capacities.
+     *
+     * @param maxEntries      the maximum number of entries in each table
+     * @param maxTextsPerFile the maximum number of texts whose results are kept for one file
+     * @throws IllegalArgumentException if a capacity is not positive
+     */
+    public SearchCache(int maxEntries, int maxTextsPerFile) {
+        if (maxEntries <= 0 || maxTextsPerFile <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.listings = new LruTable<>(maxEntries);
+        this.files = new LruTable<>(maxEntries);
+        this.maxTextsPerFile = maxTextsPerFile;
+    }
+
+    /**
+     * Walks a file tree like {@link Files#walkFileTree(Path, FileVisitor)}, but takes the children of a directory
+     * from the cache when the directory has not been modified since it was last listed. Symbolic links are not
+     * followed.
+     *
+     * @param start   the starting directory or file
+     * @param visitor the visitor to invoke for each file
+     * @throws IOException if the starting path cannot be read or the visitor throws
+     */
+    public void walkFileTree(Path start, FileVisitor<? super Path> visitor) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(start, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            visitor.visitFileFailed(start, e);
+            return;
+        }
+        walk(start, attrs, visitor);
+    }
+
+    /**
+     * Checks if a file contains the specified text, evaluating the matcher only when no result is cached for the
+     * file's current modification time and size. The matcher is evaluated without holding a lock, so concurrent
+     * searches for the same text may both evaluate it.
+     *
+     * @param file    the file to check
+     * @param attrs   the current attributes of the file
+     * @param text    the text to search for
+     * @param matcher the matcher used on a cache miss
+     * @return true if the file contains the text, false otherwise
+     */
+    public boolean containsText(Path file, BasicFileAttributes attrs, String text, Predicate<Path> matcher) {
+        FileSummary summary = summary(file, attrs);
+        Boolean matches = summary.getMatch(text);
+        if (matches == null) {
+            matches = matcher.test(file);
+            summary.putMatch(text, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Checks if a file is an archive, evaluating the check only when no result is cached for the file's current
+     * modification time and size.
+     *
+     * @param file  the file to check
+     * @param attrs the current attributes of the file
+     * @param check the check used on a cache miss
+     * @return true if the file is an archive, false otherwise
+     */
+    public boolean isArchive(Path file, BasicFileAttributes attrs, Predicate<Path> check) {
+        FileSummary summary = summary(file, attrs);
+        Boolean archive = summary.archive;
+        if (archive == null) {
+            archive = check.test(file);
+            summary.archive = archive;
+        }
+        return archive;
+    }
+
+    /**
+     * Removes all cached listings and results.
+     */
+    public void clear() {
+        listings.clear();
+        files.clear();
+    }
+
+    private FileVisitResult walk(Path path, BasicFileAttributes attrs, FileVisitor<? super Path> visitor)
+            throws IOException {
+        if (!attrs.isDirectory()) {
+            return visitor.visitFile(path, attrs);
+        }
+
+        FileVisitResult result = visitor.preVisitDirectory(path, attrs);
+        if (result != FileVisitResult.CONTINUE) {
+            return result == FileVisitResult.SKIP_SUBTREE ? FileVisitResult.CONTINUE : result;
+        }
+
+        List<Path> children;
+        try {
+            children = listing(path, attrs);
+        } catch (IOException e) {
+            return visitor.postVisitDirectory(path, e);
+        }
+
+        for (Path child : children) {
+            BasicFileAttributes childAttrs;
+            try {
+                childAttrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                result = walk(child, childAttrs, visitor);
+            } catch (IOException e) {
+                result = visitor.visitFileFailed(child, e);
+            }
+            if (result == FileVisitResult.TERMINATE) {
+                return result;
+            }
+            if (result == FileVisitResult.SKIP_SIBLINGS) {
+                break;
+            }
+        }
+        return visitor.postVisitDirectory(path, null);
+    }
+
+    private List<Path> listing(Path directory, BasicFileAttributes attrs) throws IOException {
+        DirectoryListing cached = listings.get(directory);
+        if (cached != null && cached.modified.equals(attrs.lastModifiedTime())) {
+            return cached.children;
+        }
+
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(children::add);
+        }
+        children = Collections.unmodifiableList(children);
+        listings.put(directory, new DirectoryListing(attrs.lastModifiedTime(), children));
+        return children;
+    }
+
+    private FileSummary summary(Path file, BasicFileAttributes attrs) {
+        FileSummary summary = files.get(file);
+        if (summary == null || !summary.modified.equals(attrs.lastModifiedTime()) || summary.size != attrs.size()) {
+            summary = new FileSummary(attrs.lastModifiedTime(), attrs.size(), this.maxTextsPerFile);
+            files.put(file, summary);
+        }
+        return summary;
+    }
+
+    private static <K, V> LinkedHashMap<K, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * A bounded table split into least recently used segments, each guarded by its own lock.
+     */
+    private static final class LruTable<K, V> {
+
+        private final LinkedHashMap<K, V>[] segments;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private LruTable(int maxEntries) {
+            int segmentCount = Integer.highestOneBit(Math.min(MAX_SEGMENTS, maxEntries));
+            this.segments = new LinkedHashMap[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                this.segments[i] = lruMap(maxEntries / segmentCount);
+            }
+        }
+
+        private V get(K key) {
+            LinkedHashMap<K, V> segment = segmentFor(key);
+            synchronized (segment) {
+                return segment.get(key);
+            }
+        }
+
+        private void put(K key, V value) {
+            LinkedHashMap<K, V> segment = segmentFor(key);
+            synchronized (segment) {
+                segment.put(key, value);
+            }
+        }
+
+        private void clear() {
+            for (LinkedHashMap<K, V> segment : this.segments) {
+                synchronized (segment) {
+                    segment.clear();
+                }
+            }
+        }
+
+        private LinkedHashMap<K, V> segmentFor(K key) {
+            int hash = key.hashCode();
+            return this.segments[(hash ^ (hash >>> 16)) & (this.segments.length - 1)];
+        }
+    }
+
+    /**
+     * The children of a directory as of its recorded modification time.
+     */
+    private record DirectoryListing(FileTime modified, List<Path> children) {
+    }
+
+    /**
+     * The cached results for one version of a file, with the results of the most recently searched texts.
+     */
+    private static final class FileSummary {
+
+        private final FileTime modified;
+        private final long size;
+        private final Map<String, Boolean> matches;
+        private volatile Boolean archive;
+
+        private FileSummary(FileTime modified, long size, int maxTexts) {
+            this.modified = modified;
+            this.size = size;
+            this.matches = lruMap(maxTexts);
+        }
+
+        private synchronized Boolean getMatch(String text) {
+            return this.matches.get(text);
+        }
+
+        private synchronized void putMatch(String text, boolean matches) {
+            this.matches.put(text, matches);
+        }
+    }
+}
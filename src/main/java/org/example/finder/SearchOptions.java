@@ -0,0 +1,188 @@
+package org.example.finder;
+
+import org.example.cache.SearchCache;
+import org.example.scheduler.IoScheduler;
+import org.example.summary.BloomSummaryStore;
+import org.example.visitor.Deduplication;
+
+/**
+ * The SearchOptions class selects how {@link TextFinder#findText(String, String, SearchOptions)} walks and reads the
+ * tree. The default options use no cache, no scheduler, no summary store and no deduplication, so they walk the tree
+ * and read every file one by one. The summary access defaults to {@link BloomSummaryStore.Access#READ_WRITE}, which
+ * only takes effect once a summary store is set. Options are created with a {@link Builder}:
+ * <pre>{@code
+ * SearchOptions options = SearchOptions.builder()
+ *         .searchCache(searchCache)
+ *         .ioScheduler(ioScheduler)
+ *         .build();
+ * }</pre>
+ * <p>
+ * The options combine as follows:
+ * <ul>
+ *     <li>The cache reuses directory listings only when the search neither deduplicates nor uses a scheduler, as
+ *     both of these walk the tree themselves. Per-file results are reused in every case.</li>
+ *     <li>Deduplication follows symbolic links, also when the reads are scheduled.</li>
+ *     <li>Summaries are used to skip subtrees in every case and, with {@link BloomSummaryStore.Access#READ_WRITE},
+ *     written for the directories whose summary is missing or stale.</li>
+ * </ul>
+ */
+public final class SearchOptions {
+
+    private final SearchCache searchCache;
+    private final Deduplication deduplication;
+    private final IoScheduler ioScheduler;
+    private final BloomSummaryStore summaryStore;
+    private final BloomSummaryStore.Access summaryAccess;
+
+    private SearchOptions(Builder builder) {
+        this.searchCache = builder.searchCache;
+        this.deduplication = builder.deduplication;
+        this.ioScheduler = builder.ioScheduler;
+        this.summaryStore = builder.summaryStore;
+        this.summaryAccess = builder.summaryAccess;
+    }
+
+    /**
+     * Creates a builder that starts from the default options.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Retrieves the cache of directory listings and per-file results.
+     *
+     * @return the cache, or null to walk and read the whole tree
+     */
+    public SearchCache getSearchCache() {
+        return this.searchCache;
+    }
+
+    /**
+     * Retrieves the way repeated content is detected.
+     *
+     * @return the deduplication mode
+     */
+    public Deduplication getDeduplication() {
+        return this.deduplication;
+    }
+
+    /**
+     * Retrieves the scheduler of the reads.
+     *
+     * @return the scheduler, or null to read in walk order
+     */
+    public IoScheduler getIoScheduler() {
+        return this.ioScheduler;
+    }
+
+    /**
+     * Retrieves the store of directory summaries.
+     *
+     * @return the store, or null to visit every directory
+     */
+    public BloomSummaryStore getSummaryStore() {
+        return this.summaryStore;
+    }
+
+    /**
+     * Retrieves whether the directory summaries are only used or also written.
+     *
+     * @return the summary access
+     */
+    public BloomSummaryStore.Access getSummaryAccess() {
+        return this.summaryAccess;
+    }
+
+    /**
+     * The SearchOptions.Builder class collects the options of a search.
+     */
+    public static final class Builder {
+
+        private SearchCache searchCache;
+        private Deduplication deduplication = Deduplication.NONE;
+        private IoScheduler ioScheduler;
+        private BloomSummaryStore summaryStore;
+        private BloomSummaryStore.Access summaryAccess = BloomSummaryStore.Access.READ_WRITE;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the cache whose directory listings and per-file results are reused. Unchanged directories are not
+         * listed again and unchanged files are not read again for a text that was already searched.
+         *
+         * @param searchCache the cache, or null to walk and read the whole tree
+         * @return this builder
+         */
+        public Builder searchCache(SearchCache searchCache) {
+            this.searchCache = searchCache;
+            return this;
+        }
+
+        /**
+         * Sets the way repeated content is detected, so it is scanned only once. The result of a scan is reported
+         * for every path that leads to the same content.
+         *
+         * @param deduplication the deduplication mode, {@link Deduplication#NONE} by default
+         * @return this builder
+         * @throws IllegalArgumentException if the mode is null
+         */
+        public Builder deduplication(Deduplication deduplication) {
+            if (deduplication == null) {
+                throw new IllegalArgumentException("Your deduplication is not valid");
+            }
+            this.deduplication = deduplication;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler that orders the reads of every file store for locality and tunes how many of them run
+         * concurrently.
+         *
+         * @param ioScheduler the scheduler, or null to read in walk order
+         * @return this builder
+         */
+        public Builder ioScheduler(IoScheduler ioScheduler) {
+            this.ioScheduler = ioScheduler;
+            return this;
+        }
+
+        /**
+         * Sets the store of directory summaries used to skip every subtree whose summaries rule out the text.
+         *
+         * @param summaryStore the store, or null to visit every directory
+         * @return this builder
+         */
+        public Builder summaryStore(BloomSummaryStore summaryStore) {
+            this.summaryStore = summaryStore;
+            return this;
+        }
+
+        /**
+         * Sets whether the directory summaries are only used or also written.
+         *
+         * @param summaryAccess the summary access, {@link BloomSummaryStore.Access#READ_WRITE} by default
+         * @return this builder
+         * @throws IllegalArgumentException if the access is null
+         */
+        public Builder summaryAccess(BloomSummaryStore.Access summaryAccess) {
+            if (summaryAccess == null) {
+                throw new IllegalArgumentException("Your summary access is not valid");
+            }
+            this.summaryAccess = summaryAccess;
+            return this;
+        }
+
+        /**
+         * Creates the options.
+         *
+         * @return the options
+         */
+        public SearchOptions build() {
+            return new SearchOptions(this);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.finder;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+
+/**
+ * The SearchQuery record describes one query of a batch search: the text to search for, an optional glob that file
+ * names must match and the maximum number of files to return.
+ *
+ * @param textToSearch the text to search for
+ * @param fileNameGlob the glob file names must match, or null to accept every file
+ * @param limit        the maximum number of files to return
+ */
+public record SearchQuery(String textToSearch, String fileNameGlob, int limit) {
+
+    /**
+     * The separator between the fields of a query line.
+     */
+    public static final String FIELD_SEPARATOR = "\t";
+
+    /**
+     * Validates the query.
+     *
+     * @throws IllegalArgumentException if the text is null or empty or the limit is not positive
+     */
+    public SearchQuery {
+        if (textToSearch == null || textToSearch.isEmpty()) {
+            throw new IllegalArgumentException("Your text is not valid");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Your limit is not valid");
+        }
+    }
+
+    /**
+     * Constructs a query for the specified text that accepts every file and has no limit.
+     *
+     * @param textToSearch the text to search for
+     */
+    public SearchQuery(String textToSearch) {
+        this(textToSearch, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses a query line of the form {@code text[<TAB>glob[<TAB>limit]]}. An empty glob accepts every file.
+     *
+     * @param line the line to parse
+     * @return the parsed query
+     * @throws IllegalArgumentException if the text is empty or the limit is not a positive number
+     */
+    public static SearchQuery parse(String line) {
+        String[] fields = line.split(FIELD_SEPARATOR, 3);
+
+        String fileNameGlob = fields.length > 1 && !fields[1].isEmpty() ? fields[1] : null;
+        int limit = fields.length > 2 ? Integer.parseInt(fields[2].trim()) : Integer.MAX_VALUE;
+
+        return new SearchQuery(fields[0], fileNameGlob, limit);
+    }
+
+    /**
+     * Creates the matcher for the file name glob.
+     *
+     * @return the matcher, or null when the query accepts every file
+     */
+    public PathMatcher fileNameMatcher() {
+        return fileNameGlob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + fileNameGlob);
+    }
+}
@@ -1,11 +1,18 @@
 package org.example.finder;
 
+import org.example.cache.SearchCache;
+import org.example.scheduler.IoScheduler;
+import org.example.visitor.Deduplication;
 import org.example.visitor.FileTextRecognitionVisitor;
+import org.example.visitor.MultiQueryVisitor;
 
 import java.io.IOException;
+import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The TextFinder class is a utility class that allows searching for a specific text in files within a given directory.
@@ -21,7 +28,10 @@ public class TextFinder {
 
 
     /**
-     * Finds files within the specified directory that contain the given text.
+     * Finds files within the specified directory that contain the given text. The files are ordered by size, and
+     * files of equal size keep the order in which they were found. The returned list supports sorting, replacing
+     * and removing entries, e.g. {@link List#sort} and {@link List#removeIf}; only inserting in the middle is
+     * unsupported.
      *
      * @param textToSearch the text to search for
      * @param path         the path of the directory to search in
@@ -29,19 +39,140 @@ public class TextFinder {
      * @throws IllegalArgumentException if the text is null or empty
      */
     public static List<Path> findText(String textToSearch, String path) {
+        return findText(textToSearch, path, SearchOptions.builder().build());
+    }
+
+    /**
+     * Finds files within the specified directory that contain the given text, reusing the directory listings and
+     * per-file results held by the given cache. Unchanged directories are not listed again and unchanged files are
+     * not read again for a text that was already searched.
+     *
+     * @param textToSearch the text to search for
+     * @param path         the path of the directory to search in
+     * @param searchCache  the cache to use, or null to walk and read the whole tree
+     * @return a list of paths to files that contain the text
+     * @throws IllegalArgumentException if the text is null or empty
+     */
+    public static List<Path> findText(String textToSearch, String path, SearchCache searchCache) {
+        return findText(textToSearch, path, SearchOptions.builder().searchCache(searchCache).build());
+    }
+
+    /**
+     * Finds files within the specified directory that contain the given text, scanning repeated content only once
+     * as selected by the deduplication mode. The result of a scan is reported for every path that leads to the same
+     * content.
+     *
+     * @param textToSearch  the text to search for
+     * @param path          the path of the directory to search in
+     * @param searchCache   the cache to use, or null to walk and read the whole tree
+     * @param deduplication the way repeated content is detected
+     * @return a list of paths to files that contain the text
+     * @throws IllegalArgumentException if the text is null or empty or the deduplication mode is null
+     * @deprecated use {@link #findText(String, String, SearchOptions)} with
+     * {@link SearchOptions.Builder#deduplication(Deduplication)} instead
+     */
+    @Deprecated
+    public static List<Path> findText(String textToSearch, String path, SearchCache searchCache,
+                                      Deduplication deduplication) {
+        return findText(textToSearch, path, SearchOptions.builder()
+                .searchCache(searchCache)
+                .deduplication(deduplication)
+                .build());
+    }
+
+    /**
+     * Finds files within the specified directory that contain the given text, with the reads scheduled by the given
+     * I/O scheduler. The scheduler orders the reads of every file store for locality and tunes how many of them run
+     * concurrently. Without a scheduler, files are read one by one in walk order.
+     *
+     * @param textToSearch  the text to search for
+     * @param path          the path of the directory to search in
+     * @param searchCache   the cache to use, or null to walk and read the whole tree
+     * @param deduplication the way repeated content is detected
+     * @param ioScheduler   the scheduler of the reads, or null to read in walk order
+     * @return a list of paths to files that contain the text
+     * @throws IllegalArgumentException if the text is null or empty or the deduplication mode is null
+     * @deprecated use {@link #findText(String, String, SearchOptions)} with
+     * {@link SearchOptions.Builder#ioScheduler(IoScheduler)} instead
+     */
+    @Deprecated
+    public static List<Path> findText(String textToSearch, String path, SearchCache searchCache,
+                                      Deduplication deduplication, IoScheduler ioScheduler) {
+        return findText(textToSearch, path, SearchOptions.builder()
+                .searchCache(searchCache)
+                .deduplication(deduplication)
+                .ioScheduler(ioScheduler)
+                .build());
+    }
+
+    /**
+     * Finds files within the specified directory that contain the given text, walking and reading the tree as
+     * selected by the options. See {@link SearchOptions} for how the options combine.
+     *
+     * @param textToSearch the text to search for
+     * @param path         the path of the directory to search in
+     * @param options      the options of the search
+     * @return a list of paths to files that contain the text, ordered as by {@link #findText(String, String)}
+     * @throws IllegalArgumentException if the text is null or empty or no options are given
+     */
+    public static List<Path> findText(String textToSearch, String path, SearchOptions options) {
 
         if(textToSearch == null || textToSearch.isEmpty()){
             throw new IllegalArgumentException("Your text is not valid");
         }
+        if (options == null) {
+            throw new IllegalArgumentException("Your options are not valid");
+        }
 
-        FileTextRecognitionVisitor fileTextRecognitionVisitor = new FileTextRecognitionVisitor(textToSearch);
+        SearchCache searchCache = options.getSearchCache();
+        IoScheduler ioScheduler = options.getIoScheduler();
+
+        FileTextRecognitionVisitor fileTextRecognitionVisitor = new FileTextRecognitionVisitor(textToSearch, options);
+
+        Set<FileVisitOption> walkOptions = options.getDeduplication() == Deduplication.NONE
+                ? EnumSet.noneOf(FileVisitOption.class)
+                : EnumSet.of(FileVisitOption.FOLLOW_LINKS);
 
         try {
-            Files.walkFileTree(Path.of(path),fileTextRecognitionVisitor);
+            if (ioScheduler != null) {
+                ioScheduler.walkFileTree(Path.of(path), walkOptions, fileTextRecognitionVisitor);
+            } else if (!walkOptions.isEmpty()) {
+                Files.walkFileTree(Path.of(path), walkOptions, Integer.MAX_VALUE, fileTextRecognitionVisitor);
+            } else if (searchCache == null) {
+                Files.walkFileTree(Path.of(path),fileTextRecognitionVisitor);
+            } else {
+                searchCache.walkFileTree(Path.of(path),fileTextRecognitionVisitor);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
         return fileTextRecognitionVisitor.getFileContainsText();
     }
+
+    /**
+     * Answers several queries within the specified directory in a single traversal. Every file is read at most once,
+     * no matter how many queries it is checked against.
+     *
+     * @param queries the queries to answer
+     * @param path    the path of the directory to search in
+     * @return one list of paths to matching files per query, in the order the queries were given
+     * @throws IllegalArgumentException if no query is given
+     */
+    public static List<List<Path>> findTextBatch(List<SearchQuery> queries, String path) {
+
+        if(queries == null || queries.isEmpty()){
+            throw new IllegalArgumentException("Your queries are not valid");
+        }
+
+        MultiQueryVisitor multiQueryVisitor = new MultiQueryVisitor(queries);
+
+        try {
+            Files.walkFileTree(Path.of(path),multiQueryVisitor);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return multiQueryVisitor.getResults();
+    }
 }
@@ -0,0 +1,135 @@
+package org.example.scheduler;
+
+/**
+ * The AdaptiveConcurrency class limits the number of reads in flight against one file store and tunes the limit by
+ * hill climbing on the measured throughput. After every window of completed reads the limit is moved one step in
+ * the current direction while throughput improves and the direction is reversed when throughput drops. The limit
+ * is lowered whenever the average latency of a read grows far beyond the baseline latency. The baseline follows the
+ * lowest latency seen, but decays towards the current latency, so one window of unusually fast reads does not keep
+ * pushing the limit down.
+ */
+final class AdaptiveConcurrency {
+
+    /**
+     * The number of completed reads after which the limit is reconsidered.
+     */
+    static final int WINDOW_READS = 16;
+
+    /**
+     * The relative throughput change that is treated as noise.
+     */
+    private static final double TOLERANCE = 0.05;
+
+    /**
+     * The factor over the best average latency at which the limit is lowered regardless of throughput.
+     */
+    private static final double LATENCY_LIMIT = 4.0;
+
+    /**
+     * The share of the gap to the current latency the baseline closes after every window.
+     */
+    private static final double BASELINE_DECAY = 0.25;
+
+    private final int maxConcurrency;
+    private int limit;
+    private int inFlight;
+    private int direction;
+
+    private int windowReads;
+    private long windowBytes;
+    private long windowLatencyNanos;
+    private long windowStartNanos;
+
+    private double lastThroughput;
+    private double baselineLatencyNanos;
+
+    /**
+     * Constructs a new AdaptiveConcurrency with the specified bounds.
+     *
+     * @param initialConcurrency the limit to start with
+     * @param maxConcurrency     the highest limit ever used
+     */
+    AdaptiveConcurrency(int initialConcurrency, int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.limit = Math.max(1, Math.min(initialConcurrency, maxConcurrency));
+        this.direction = 1;
+    }
+
+    /**
+     * Starts another read if the limit allows it, without waiting.
+     *
+     * @return true if the read may be started, false if the limit is reached
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Marks a read started with {@link #tryAcquire()} as completed.
+     */
+    synchronized void release() {
+        inFlight--;
+    }
+
+    /**
+     * Records the cost of reading one file and adjusts the limit when a window is complete.
+     *
+     * @param bytes        the number of bytes actually read
+     * @param latencyNanos the time reading the file took
+     * @param nowNanos     the current time
+     */
+    synchronized void record(long bytes, long latencyNanos, long nowNanos) {
+        if (windowReads == 0) {
+            windowStartNanos = nowNanos - latencyNanos;
+        }
+        windowReads++;
+        windowBytes += bytes;
+        windowLatencyNanos += latencyNanos;
+
+        if (windowReads < WINDOW_READS) {
+            return;
+        }
+
+        double throughput = (double) windowBytes / Math.max(1, nowNanos - windowStartNanos);
+        double latency = (double) windowLatencyNanos / windowReads;
+
+        if (baselineLatencyNanos == 0) {
+            baselineLatencyNanos = latency;
+        }
+
+        if (latency > baselineLatencyNanos * LATENCY_LIMIT) {
+            direction = -1;
+            step();
+        } else if (lastThroughput == 0 || throughput > lastThroughput * (1 + TOLERANCE)) {
+            step();
+        } else if (throughput < lastThroughput * (1 - TOLERANCE)) {
+            direction = -direction;
+            step();
+        }
+
+        baselineLatencyNanos = latency < baselineLatencyNanos
+                ? latency
+                : baselineLatencyNanos + (latency - baselineLatencyNanos) * BASELINE_DECAY;
+        lastThroughput = throughput;
+        windowReads = 0;
+        windowBytes = 0;
+        windowLatencyNanos = 0;
+    }
+
+    private void step() {
+        limit = Math.max(1, Math.min(maxConcurrency, limit + direction));
+    }
+
+    /**
+     * Retrieves the current limit.
+     *
+     * @return the number of reads that may be in flight
+     */
+    synchronized int getLimit() {
+        return limit;
+    }
+}
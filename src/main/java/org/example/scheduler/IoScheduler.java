@@ -0,0 +1,585 @@
+package org.example.scheduler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The IoScheduler class sits between the walker and a visitor that reads files. Files found by the walker are
+ * grouped by the {@link FileStore} they live on and collected in a window of at most {@link #DEFAULT_WINDOW_FILES}
+ * files per file store. A full window is put in the configured {@link ReadOrder}, small files are handed out in
+ * batches, and the batches are read while the walk continues. The number of reads in flight is tuned separately for
+ * every file store from the throughput and per-file latency measured so far, counting the bytes a visitor reports
+ * through {@link ReadCounter}. At most {@link #DEFAULT_MAX_PENDING_FILES} files
+ * wait to be read at any time, so memory stays bounded however large the tree is.
+ * <p>
+ * The tuned limits and the worker threads are kept for the lifetime of the scheduler, so later walks start from the
+ * tuned limits and reuse the threads' pooled read buffers. {@link #close()} releases the threads.
+ * <p>
+ * Directory callbacks are made by the walking thread, in walk order. {@link FileVisitor#visitFile} is called
+ * concurrently from worker threads, so the visitor must be thread-safe. Every file of a directory has been visited
+ * before {@link FileVisitor#postVisitDirectory} is called for it, but the walk may already have entered later
+ * directories by then, and only a {@link FileVisitResult#TERMINATE} returned from it is honoured. A visitor that
+ * returns {@link FileVisitResult#TERMINATE} stops the walk and the reads that have not started yet.
+ * <p>
+ * With {@link ReadOrder#INODE}, finding the inode number of a file costs one extra attribute read while walking.
+ */
+public class IoScheduler implements Closeable {
+
+    /**
+     * The default number of reads in flight per file store before any measurement.
+     */
+    public static final int DEFAULT_INITIAL_CONCURRENCY = 2;
+
+    /**
+     * The default number of files per file store that are ordered together.
+     */
+    public static final int DEFAULT_WINDOW_FILES = 1024;
+
+    /**
+     * The default number of files found by the walker that may wait to be read.
+     */
+    public static final int DEFAULT_MAX_PENDING_FILES = 8 * DEFAULT_WINDOW_FILES;
+
+    /**
+     * The number of directories that may wait for their files to be read before the walker waits for them.
+     */
+    static final int MAX_PENDING_DIRECTORIES = 1024;
+
+    /**
+     * Files up to this size are read in batches.
+     */
+    static final long SMALL_FILE_SIZE = 64 * 1024;
+
+    /**
+     * The maximum total size of a batch of small files.
+     */
+    static final long BATCH_BYTES = 1024 * 1024;
+
+    /**
+     * The maximum number of files in a batch.
+     */
+    static final int BATCH_FILES = 64;
+
+    private final ReadOrder readOrder;
+    private final int initialConcurrency;
+    private final int maxConcurrency;
+    private final int windowFiles;
+    private final int maxPendingFiles;
+    /**
+     * The concurrency limits, keyed by file store.
+     */
+    private final Map<FileStore, AdaptiveConcurrency> concurrencies;
+    /**
+     * The worker threads that read the files, kept between walks.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a new IoScheduler that reads in inode order and may use up to four reads per processor on every
+     * file store.
+     */
+    public IoScheduler() {
+        this(ReadOrder.INODE, DEFAULT_INITIAL_CONCURRENCY, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new IoScheduler with the specified read order and concurrency bounds.
+     *
+     * @param readOrder          the order in which the files of one window are read
+     * @param initialConcurrency the number of reads in flight on a file store before any measurement
+     * @param maxConcurrency     the highest number of reads in flight on a file store
+     * @throws IllegalArgumentException if a bound is not positive or the initial bound exceeds the maximum
+     */
+    public IoScheduler(ReadOrder readOrder, int initialConcurrency, int maxConcurrency) {
+        this(readOrder, initialConcurrency, maxConcurrency, DEFAULT_WINDOW_FILES, DEFAULT_MAX_PENDING_FILES);
+    }
+
+    /**
+     * Constructs a new IoScheduler with the specified read order, concurrency bounds and window sizes.
+     *
+     * @param readOrder          the order in which the files of one window are read
+     * @param initialConcurrency the number of reads in flight on a file store before any measurement
+     * @param maxConcurrency     the highest number of reads in flight on a file store
+     * @param windowFiles        the number of files per file store that are ordered together
+     * @param maxPendingFiles    the number of files that may wait to be read
+     * @throws IllegalArgumentException if a bound is not positive or the initial bound exceeds the maximum
+     */
+    IoScheduler(ReadOrder readOrder, int initialConcurrency, int maxConcurrency, int windowFiles,
+                int maxPendingFiles) {
+        if (initialConcurrency <= 0 || maxConcurrency < initialConcurrency) {
+            throw new IllegalArgumentException("Your concurrency is not valid");
+        }
+        if (windowFiles <= 0 || maxPendingFiles < windowFiles) {
+            throw new IllegalArgumentException("Your window is not valid");
+        }
+        this.readOrder = readOrder;
+        this.initialConcurrency = initialConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.windowFiles = windowFiles;
+        this.maxPendingFiles = maxPendingFiles;
+        this.concurrencies = new ConcurrentHashMap<>();
+        this.executor = new ThreadPoolExecutor(maxConcurrency, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "io-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Walks a file tree and hands every file to the visitor as scheduled by this scheduler.
+     *
+     * @param start   the starting directory or file
+     * @param options the options of the walk
+     * @param visitor the visitor to invoke for each file
+     * @throws IOException           if the walk fails or the visitor throws
+     * @throws IllegalStateException if the scheduler is closed
+     */
+    public void walkFileTree(Path start, Set<FileVisitOption> options, FileVisitor<? super Path> visitor)
+            throws IOException {
+
+        if (this.executor.isShutdown()) {
+            throw new IllegalStateException("Your scheduler is closed");
+        }
+        Walk walk = new Walk(start, visitor);
+        try {
+            Files.walkFileTree(start, options, Integer.MAX_VALUE, walk);
+        } catch (IOException | RuntimeException e) {
+            walk.terminated.set(true);
+            throw e;
+        } finally {
+            walk.finish();
+        }
+
+        Exception exception = walk.failure.get();
+        if (exception instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (exception instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+    }
+
+    /**
+     * Retrieves the current concurrency limit of every file store seen so far.
+     *
+     * @return the number of reads that may be in flight, keyed by file store
+     */
+    public Map<FileStore, Integer> getConcurrencyLimits() {
+        Map<FileStore, Integer> limits = new HashMap<>();
+        this.concurrencies.forEach((fileStore, concurrency) -> limits.put(fileStore, concurrency.getLimit()));
+        return limits;
+    }
+
+    /**
+     * Stops the worker threads. Reads that are still running are interrupted.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Sorts the reads of one window by the configured read order.
+     *
+     * @param reads the reads in walk order
+     * @return the sorted reads
+     */
+    List<ScheduledRead> order(List<ScheduledRead> reads) {
+        Comparator<ScheduledRead> byDirectory = Comparator
+                .comparing((ScheduledRead read) -> String.valueOf(read.file().getParent()))
+                .thenComparing(read -> read.file().getFileName().toString());
+
+        if (this.readOrder == ReadOrder.DIRECTORY) {
+            reads.sort(byDirectory);
+        } else if (this.readOrder == ReadOrder.INODE) {
+            reads.sort(Comparator.comparingLong(ScheduledRead::inode).thenComparing(byDirectory));
+        }
+        return reads;
+    }
+
+    /**
+     * Groups consecutive small files into batches. Every other file is a batch of its own.
+     *
+     * @param reads the ordered reads
+     * @return the batches
+     */
+    static List<List<ScheduledRead>> batch(List<ScheduledRead> reads) {
+        List<List<ScheduledRead>> batches = new ArrayList<>();
+        List<ScheduledRead> current = new ArrayList<>();
+        long currentBytes = 0;
+
+        for (ScheduledRead read : reads) {
+            long size = read.attrs().size();
+            if (size > SMALL_FILE_SIZE) {
+                batches.add(List.of(read));
+                continue;
+            }
+            if (current.size() == BATCH_FILES || currentBytes + size > BATCH_BYTES) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+            current.add(read);
+            currentBytes += size;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * A file found by the walker, waiting to be read.
+     *
+     * @param file      the file
+     * @param attrs     the file attributes
+     * @param inode     the inode number, or {@link Long#MAX_VALUE} when unknown
+     * @param directory the directory the file was found in, or null when it is not tracked
+     */
+    record ScheduledRead(Path file, BasicFileAttributes attrs, long inode, PendingDirectory directory) {
+
+        /**
+         * Constructs a read that is not tracked by a directory.
+         *
+         * @param file  the file
+         * @param attrs the file attributes
+         * @param inode the inode number, or {@link Long#MAX_VALUE} when unknown
+         */
+        ScheduledRead(Path file, BasicFileAttributes attrs, long inode) {
+            this(file, attrs, inode, null);
+        }
+    }
+
+    /**
+     * A directory whose files are being read, with the failure that ended its iteration.
+     */
+    static final class PendingDirectory {
+
+        private final Path directory;
+        private final AtomicInteger unread = new AtomicInteger();
+        private IOException failure;
+
+        private PendingDirectory(Path directory) {
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * The state of one walk: forwards directory callbacks to the target visitor, collects the files in windows and
+     * hands them to the lanes of their file stores.
+     */
+    private final class Walk implements FileVisitor<Path> {
+
+        private final Path start;
+        private final FileVisitor<? super Path> target;
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final Semaphore pendingFiles = new Semaphore(maxPendingFiles);
+        private final Map<FileStore, Lane> lanes = new LinkedHashMap<>();
+        private final Map<Object, FileStore> fileStoresByDevice = new HashMap<>();
+        /**
+         * The directories being walked, innermost first.
+         */
+        private final Deque<PendingDirectory> openDirectories = new ArrayDeque<>();
+        /**
+         * The walked directories whose post-visit callback is due, in walk order.
+         */
+        private final Deque<PendingDirectory> closedDirectories = new ArrayDeque<>();
+        private final Deque<FileStore> fileStores = new ArrayDeque<>();
+        private final PendingDirectory startDirectory;
+        private FileStore startFileStore;
+        private boolean unixView = true;
+
+        private Walk(Path start, FileVisitor<? super Path> target) {
+            this.start = start;
+            this.target = target;
+            this.startDirectory = new PendingDirectory(null);
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            if (deliverClosedDirectories(false) == FileVisitResult.TERMINATE) {
+                return FileVisitResult.TERMINATE;
+            }
+            FileVisitResult result = this.target.preVisitDirectory(dir, attrs);
+            if (result == FileVisitResult.CONTINUE) {
+                this.fileStores.push(fileStoreOf(dir));
+                this.openDirectories.push(new PendingDirectory(dir));
+            }
+            return result;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            if (this.terminated.get()) {
+                return FileVisitResult.TERMINATE;
+            }
+            FileStore fileStore = this.fileStores.isEmpty() ? fileStoreOf(file) : this.fileStores.peek();
+            long inode = readOrder == ReadOrder.INODE ? inodeOf(file) : Long.MAX_VALUE;
+            PendingDirectory directory = this.openDirectories.isEmpty() ? this.startDirectory
+                    : this.openDirectories.peek();
+
+            acquirePendingFile();
+            directory.unread.incrementAndGet();
+            Lane lane = this.lanes.computeIfAbsent(fileStore, Lane::new);
+            lane.window.add(new ScheduledRead(file, attrs, inode, directory));
+            if (lane.window.size() >= windowFiles) {
+                lane.flush();
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+            return this.terminated.get() ? FileVisitResult.TERMINATE : this.target.visitFileFailed(file, exc);
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+            this.fileStores.pop();
+            PendingDirectory directory = this.openDirectories.pop();
+            directory.failure = exc;
+            this.closedDirectories.add(directory);
+            return deliverClosedDirectories(this.closedDirectories.size() > MAX_PENDING_DIRECTORIES);
+        }
+
+        /**
+         * Makes the post-visit callbacks of the closed directories whose files have all been read, in walk order.
+         *
+         * @param wait whether to wait for the first closed directory instead of returning
+         * @return the visit result, {@link FileVisitResult#TERMINATE} once the walk is terminated
+         */
+        private FileVisitResult deliverClosedDirectories(boolean wait) throws IOException {
+            while (!this.closedDirectories.isEmpty() && !this.terminated.get()) {
+                PendingDirectory directory = this.closedDirectories.peek();
+                if (directory.unread.get() > 0) {
+                    if (!wait) {
+                        break;
+                    }
+                    awaitRead(directory);
+                    continue;
+                }
+                this.closedDirectories.poll();
+                if (this.target.postVisitDirectory(directory.directory, directory.failure)
+                        == FileVisitResult.TERMINATE) {
+                    this.terminated.set(true);
+                }
+            }
+            return this.terminated.get() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+        }
+
+        /**
+         * Waits until every file of a directory has been read, handing out the windows first so it can happen.
+         */
+        private void awaitRead(PendingDirectory directory) throws InterruptedIOException {
+            this.lanes.values().forEach(Lane::flush);
+            synchronized (directory) {
+                while (directory.unread.get() > 0 && !this.terminated.get()) {
+                    try {
+                        directory.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        this.terminated.set(true);
+                        throw new InterruptedIOException("Interrupted while waiting for reads");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reserves room for one more file, handing out the windows first when no room is left, so the reads that
+         * free it can start.
+         */
+        private void acquirePendingFile() throws InterruptedIOException {
+            if (this.pendingFiles.tryAcquire()) {
+                return;
+            }
+            this.lanes.values().forEach(Lane::flush);
+            try {
+                this.pendingFiles.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.terminated.set(true);
+                throw new InterruptedIOException("Interrupted while waiting for reads");
+            }
+        }
+
+        /**
+         * Reads the remaining windows, waits for every read and makes the outstanding post-visit callbacks.
+         */
+        private void finish() throws IOException {
+            this.lanes.values().forEach(Lane::flush);
+            try {
+                this.pendingFiles.acquire(maxPendingFiles);
+                this.pendingFiles.release(maxPendingFiles);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.terminated.set(true);
+                throw new InterruptedIOException("Interrupted while waiting for reads");
+            }
+            deliverClosedDirectories(false);
+        }
+
+        /**
+         * Visits the files of a batch and records the latency and the bytes actually read of every file separately,
+         * so the measurements do not depend on how many files a batch holds.
+         */
+        private void read(List<ScheduledRead> batch, AdaptiveConcurrency concurrency) {
+            try {
+                for (ScheduledRead read : batch) {
+                    try {
+                        if (!this.terminated.get()) {
+                            long start = System.nanoTime();
+                            ReadCounter.start();
+                            if (this.target.visitFile(read.file(), read.attrs()) == FileVisitResult.TERMINATE) {
+                                this.terminated.set(true);
+                            }
+                            long end = System.nanoTime();
+                            concurrency.record(ReadCounter.take(read.attrs().size()), end - start, end);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        this.failure.compareAndSet(null, e);
+                        this.terminated.set(true);
+                    } finally {
+                        markRead(read.directory());
+                    }
+                }
+            } finally {
+                concurrency.release();
+            }
+        }
+
+        private void markRead(PendingDirectory directory) {
+            if (directory.unread.decrementAndGet() == 0 || this.terminated.get()) {
+                synchronized (directory) {
+                    directory.notifyAll();
+                }
+            }
+            this.pendingFiles.release();
+        }
+
+        /**
+         * Looks up the file store of a path. The device number is used to avoid a file store lookup for every
+         * directory; without it, every path is attributed to the file store of the starting path.
+         */
+        private FileStore fileStoreOf(Path path) throws IOException {
+            Object device = this.unixView ? unixAttribute(path, "unix:dev") : null;
+            if (device == null) {
+                if (this.startFileStore == null) {
+                    this.startFileStore = Files.getFileStore(this.start);
+                }
+                return this.startFileStore;
+            }
+            FileStore fileStore = this.fileStoresByDevice.get(device);
+            if (fileStore == null) {
+                fileStore = Files.getFileStore(path);
+                this.fileStoresByDevice.put(device, fileStore);
+            }
+            return fileStore;
+        }
+
+        private long inodeOf(Path file) {
+            Object inode = this.unixView ? unixAttribute(file, "unix:ino") : null;
+            return inode instanceof Long value ? value : Long.MAX_VALUE;
+        }
+
+        private Object unixAttribute(Path path, String attribute) {
+            try {
+                return Files.getAttribute(path, attribute);
+            } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                this.unixView = false;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return null;
+        }
+
+        /**
+         * The reads of one file store: the window being collected by the walker and the batches waiting for a free
+         * slot under the file store's concurrency limit.
+         */
+        private final class Lane {
+
+            private final AdaptiveConcurrency concurrency;
+            private final Deque<List<ScheduledRead>> queued = new ArrayDeque<>();
+            private List<ScheduledRead> window = new ArrayList<>();
+
+            private Lane(FileStore fileStore) {
+                this.concurrency = concurrencies.computeIfAbsent(fileStore,
+                        store -> new AdaptiveConcurrency(initialConcurrency, maxConcurrency));
+            }
+
+            /**
+             * Orders the collected window and queues its batches.
+             */
+            private void flush() {
+                if (this.window.isEmpty()) {
+                    return;
+                }
+                List<List<ScheduledRead>> batches = batch(order(this.window));
+                this.window = new ArrayList<>();
+                synchronized (this) {
+                    this.queued.addAll(batches);
+                }
+                pump();
+            }
+
+            /**
+             * Starts queued batches while the file store's concurrency limit allows it.
+             */
+            private void pump() {
+                while (true) {
+                    List<ScheduledRead> batch;
+                    synchronized (this) {
+                        if (this.queued.isEmpty() || !this.concurrency.tryAcquire()) {
+                            return;
+                        }
+                        batch = this.queued.poll();
+                    }
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                read(batch, this.concurrency);
+                            } finally {
+                                pump();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        failure.compareAndSet(null, e);
+                        terminated.set(true);
+                        batch.forEach(read -> markRead(read.directory()));
+                        this.concurrency.release();
+                    }
+                }
+            }
+        }
+    }
+}
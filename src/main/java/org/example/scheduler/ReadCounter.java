@@ -0,0 +1,49 @@
+package org.example.scheduler;
+
+/**
+ * The ReadCounter class lets a visitor report how many bytes it actually read from the file it is visiting, so
+ * {@link IoScheduler} measures throughput from real reads rather than from file sizes. A visitor that stops at the
+ * first match reports the bytes read up to there. Counts are kept per thread; a visit that reports nothing is
+ * counted with the size of the file.
+ */
+public final class ReadCounter {
+
+    private static final ThreadLocal<long[]> BYTES_READ = ThreadLocal.withInitial(() -> new long[] { -1 });
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private ReadCounter() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Reports bytes read by the current thread.
+     *
+     * @param bytes the number of bytes read
+     */
+    public static void add(long bytes) {
+        long[] bytesRead = BYTES_READ.get();
+        bytesRead[0] = Math.max(0, bytesRead[0]) + bytes;
+    }
+
+    /**
+     * Starts counting the reads of one visit on the current thread.
+     */
+    static void start() {
+        BYTES_READ.get()[0] = -1;
+    }
+
+    /**
+     * Retrieves the bytes reported since {@link #start()} on the current thread.
+     *
+     * @param fallback the number to return when nothing was reported
+     * @return the bytes read, or the fallback
+     */
+    static long take(long fallback) {
+        long[] bytesRead = BYTES_READ.get();
+        long bytes = bytesRead[0] < 0 ? fallback : bytesRead[0];
+        bytesRead[0] = -1;
+        return bytes;
+    }
+}
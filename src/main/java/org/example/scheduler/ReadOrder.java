@@ -0,0 +1,26 @@
+package org.example.scheduler;
+
+/**
+ * The ReadOrder enum selects the order in which {@link IoScheduler} reads the files collected in one window of a file
+ * store.
+ */
+public enum ReadOrder {
+
+    /**
+     * Files are read in the order the walker found them.
+     */
+    WALK,
+
+    /**
+     * Files are grouped by directory, so files that were created together and usually sit close together on disk
+     * are read one after another.
+     */
+    DIRECTORY,
+
+    /**
+     * Files are read by ascending inode number, which follows the on-disk layout on most Unix file systems. Falls
+     * back to {@link #DIRECTORY} where inode numbers are not available. Reading the inode number costs one extra
+     * attribute read per file while walking.
+     */
+    INODE
+}
@@ -0,0 +1,86 @@
+package org.example.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The SearchClient class is a thin client for {@link SearchDaemon}. It only sends the request and returns the
+ * response lines, so scripted callers do not pay for walking the tree themselves. The daemon's token is read from
+ * its token file, so only a user who can read that file can search.
+ */
+public class SearchClient {
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private SearchClient() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Asks the daemon on the specified loopback port for files that contain the given text, with the token from
+     * the default token directory.
+     *
+     * @param port         the port of the daemon
+     * @param textToSearch the text to search for
+     * @param path         the path of the directory to search in
+     * @return the response lines, one {@code <path> <size>} line per matching file
+     * @throws IOException if the token cannot be read, or the daemon cannot be reached or rejects the request
+     */
+    public static List<String> search(int port, String textToSearch, String path) throws IOException {
+        return search(port, SearchDaemon.DEFAULT_TOKEN_DIRECTORY, textToSearch, path);
+    }
+
+    /**
+     * Asks the daemon on the specified loopback port for files that contain the given text.
+     *
+     * @param port           the port of the daemon
+     * @param tokenDirectory the directory the daemon wrote its token file to
+     * @param textToSearch   the text to search for
+     * @param path           the path of the directory to search in
+     * @return the response lines, one {@code <path> <size>} line per matching file
+     * @throws IOException if the token cannot be read, or the daemon cannot be reached or rejects the request
+     */
+    public static List<String> search(int port, Path tokenDirectory, String textToSearch, String path)
+            throws IOException {
+        String token = Files.readString(SearchDaemon.tokenFile(tokenDirectory, port), StandardCharsets.US_ASCII).trim();
+        URI uri = URI.create("http://127.0.0.1:" + port + SearchDaemon.SEARCH_PATH
+                + "?text=" + URLEncoder.encode(textToSearch, StandardCharsets.UTF_8)
+                + "&path=" + URLEncoder.encode(path, StandardCharsets.UTF_8));
+
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setRequestProperty("Authorization", "Bearer " + token);
+        try {
+            int status = connection.getResponseCode();
+            InputStream body = status == HttpURLConnection.HTTP_OK
+                    ? connection.getInputStream()
+                    : connection.getErrorStream();
+            List<String> lines = readLines(body);
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Search failed with status " + status + ": " + String.join(" ", lines));
+            }
+            return lines;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static List<String> readLines(InputStream body) throws IOException {
+        if (body == null) {
+            return List.of();
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.cache.SearchCache;
+import org.example.finder.TextFinder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The SearchDaemon class serves text searches over HTTP on the loopback interface. It keeps one {@link SearchCache}
+ * for its whole lifetime, so repeated searches reuse directory listings, per-file results and the already
+ * JIT-compiled matching code instead of paying for them on every invocation. Requests are handled concurrently.
+ * <p>
+ * A search is requested with {@code GET /search?text=<text>&path=<directory>} and answered with one
+ * {@code <path> <size>} line per matching file.
+ * <p>
+ * Every other local user can connect to a loopback port, and a search answers whether a file contains a text, so
+ * the daemon only serves its owner and only the roots it was started with. On start it writes a random token to
+ * a file only the owner can read, in a directory only the owner can enter, and every request must carry it in a
+ * {@code Authorization: Bearer <token>} header. Requests without the token are answered with 401, and paths that do
+ * not resolve to one of the roots, symbolic links included, with 403.
+ */
+public class SearchDaemon implements Closeable {
+
+    /**
+     * The default port the daemon listens on.
+     */
+    public static final int DEFAULT_PORT = 7341;
+
+    /**
+     * The context path of the search endpoint.
+     */
+    public static final String SEARCH_PATH = "/search";
+
+    /**
+     * The default directory of the token files, only accessible to its owner.
+     */
+    public static final Path DEFAULT_TOKEN_DIRECTORY = Path.of(System.getProperty("user.home"), ".myfileexplorer");
+
+    private static final String BEARER = "Bearer ";
+    private static final int TOKEN_BYTES = 32;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SearchCache searchCache;
+    private final Path tokenDirectory;
+    /**
+     * The real paths of the directories that may be searched.
+     */
+    private final List<Path> roots;
+    private final byte[] token;
+
+    /**
+     * Constructs a new SearchDaemon bound to the specified loopback port that searches only within the given roots.
+     *
+     * @param port           the port to listen on, 0 for an ephemeral port
+     * @param threads        the number of requests handled concurrently
+     * @param tokenDirectory the directory the token file is written to, restricted to its owner
+     * @param roots          the directories that may be searched
+     * @throws IOException              if the port cannot be bound
+     * @throws IllegalArgumentException if no roots are given or a root does not exist
+     */
+    public SearchDaemon(int port, int threads, Path tokenDirectory, List<Path> roots) throws IOException {
+        this.roots = realRoots(roots);
+        this.tokenDirectory = tokenDirectory;
+        this.token = HexFormat.of().formatHex(randomBytes()).getBytes(StandardCharsets.US_ASCII);
+        this.searchCache = new SearchCache();
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext(SEARCH_PATH, this::handleSearch);
+        this.server.setExecutor(executor);
+    }
+
+    /**
+     * Writes the token file and starts accepting requests.
+     *
+     * @throws IOException if the token file cannot be written
+     */
+    public void start() throws IOException {
+        writeToken();
+        server.start();
+    }
+
+    /**
+     * Retrieves the file holding the token of the daemon on a port.
+     *
+     * @param tokenDirectory the directory of the token files
+     * @param port           the port of the daemon
+     * @return the token file
+     */
+    public static Path tokenFile(Path tokenDirectory, int port) {
+        return tokenDirectory.resolve("daemon-" + port + ".token");
+    }
+
+    /**
+     * Retrieves the port the daemon is bound to.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and releases the worker threads.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            Files.deleteIfExists(tokenFile(tokenDirectory, getPort()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        try {
+            if (!isAuthorized(exchange)) {
+                respond(exchange, 401, "Your token is not valid" + System.lineSeparator());
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Only GET is supported" + System.lineSeparator());
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String path = query.get("path");
+            if (path == null || path.isEmpty()) {
+                respond(exchange, 400, "Your path is not valid" + System.lineSeparator());
+                return;
+            }
+            if (!isWithinRoots(Path.of(path))) {
+                respond(exchange, 403, "Your path is not allowed" + System.lineSeparator());
+                return;
+            }
+
+            List<Path> text = TextFinder.findText(query.get("text"), path, searchCache);
+
+            StringBuilder body = new StringBuilder();
+            text.forEach(f -> body.append(String.format("%s %d %n", f, f.toFile().length())));
+            respond(exchange, 200, body.toString());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage() + System.lineSeparator());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            respond(exchange, 500, e.getMessage() + System.lineSeparator());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isAuthorized(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            return false;
+        }
+        byte[] presented = authorization.substring(BEARER.length()).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(this.token, presented);
+    }
+
+    /**
+     * Checks if a path resolves to one of the roots. Existing paths are resolved with symbolic links followed, so a
+     * link cannot lead out of the roots; a missing path is only normalized and fails later.
+     */
+    private boolean isWithinRoots(Path path) {
+        Path resolved;
+        try {
+            resolved = path.toRealPath();
+        } catch (NoSuchFileException e) {
+            resolved = path.toAbsolutePath().normalize();
+        } catch (IOException e) {
+            return false;
+        }
+        for (Path root : this.roots) {
+            if (resolved.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Path> realRoots(List<Path> roots) {
+        if (roots == null || roots.isEmpty()) {
+            throw new IllegalArgumentException("Your roots are not valid");
+        }
+        List<Path> realRoots = new ArrayList<>();
+        for (Path root : roots) {
+            try {
+                realRoots.add(root.toRealPath());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Your roots are not valid", e);
+            }
+        }
+        return List.copyOf(realRoots);
+    }
+
+    private static byte[] randomBytes() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes the token to a file only the owner can read. The file is written under a temporary name and moved in
+     * place, so a client never reads a partial token.
+     */
+    private void writeToken() throws IOException {
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        Files.createDirectories(this.tokenDirectory);
+        if (posix) {
+            Files.setPosixFilePermissions(this.tokenDirectory, PosixFilePermissions.fromString("rwx------"));
+        }
+        Path tempFile = posix
+                ? Files.createTempFile(this.tokenDirectory, "token", ".tmp",
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")))
+                : Files.createTempFile(this.tokenDirectory, "token", ".tmp");
+        Files.write(tempFile, this.token);
+        Files.move(tempFile, tokenFile(this.tokenDirectory, getPort()), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,596 @@
+package org.example.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * The CompactPathStore class is a list of paths that avoids holding a {@link Path} object per entry.
+ * Parent directories are kept once in a directory-id table, file names are interned as UTF-8 bytes and every
+ * entry is a fixed-size record of (directory id, name id, sort key). Records and name bytes live in fixed-size
+ * segments that are allocated on the heap until the spill threshold is reached and are memory-mapped from a
+ * temporary file afterwards. Paths are rebuilt on access, so the store can be used wherever a {@code List<Path>}
+ * is expected.
+ * <p>
+ * Entries can be appended, replaced, removed and sorted, so the store behaves like a mutable list; inserting in the
+ * middle is unsupported. Both sorts are stable. Mapped segments released by sorting or removing entries are kept in
+ * a free list and reused before the spill file grows, so repeated sorts of a spilled store do not grow it. The class
+ * is not thread-safe.
+ */
+public class CompactPathStore extends AbstractList<Path> implements RandomAccess, Closeable {
+
+    /**
+     * The default number of bytes kept on the heap before segments are memory-mapped.
+     */
+    public static final long DEFAULT_SPILL_THRESHOLD = 64L << 20;
+
+    private static final int SEGMENT_SIZE = 1 << 16;
+    private static final int RECORD_SIZE = 16;
+    private static final int NAME_HEADER_SIZE = 2;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+    private static final int NO_DIRECTORY = -1;
+
+    /**
+     * The number of heap bytes after which new segments are memory-mapped.
+     */
+    private final long spillThreshold;
+    /**
+     * The directory-id table, indexed by directory id.
+     */
+    private final List<Path> directories;
+    /**
+     * The reverse lookup of the directory-id table.
+     */
+    private final Map<Path, Integer> directoryIds;
+    /**
+     * The fixed-size entry records.
+     */
+    private final Segments records;
+    /**
+     * The interned name bytes, each prefixed with its length.
+     */
+    private final Segments names;
+    /**
+     * The offset of every interned name within {@link #names}, indexed by name id.
+     */
+    private long[] nameOffsets;
+    /**
+     * The open-addressing hash table used for interning, holding name id + 1 or 0 for an empty slot.
+     */
+    private int[] nameTable;
+    private int nameCount;
+    private int size;
+    private long heapBytes;
+    private FileChannel spillChannel;
+    private long spillBytes;
+    /**
+     * The mapped segments that are no longer used, reused before new ones are mapped.
+     */
+    private final Deque<ByteBuffer> freeSegments;
+
+    /**
+     * Constructs a new CompactPathStore with the {@link #DEFAULT_SPILL_THRESHOLD default spill threshold}.
+     */
+    public CompactPathStore() {
+        this(DEFAULT_SPILL_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new CompactPathStore with the specified spill threshold.
+     *
+     * @param spillThreshold the number of heap bytes after which storage is memory-mapped, 0 to map from the start
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public CompactPathStore(long spillThreshold) {
+        if (spillThreshold < 0) {
+            throw new IllegalArgumentException("Spill threshold must not be negative");
+        }
+        this.spillThreshold = spillThreshold;
+        this.directories = new ArrayList<>();
+        this.directoryIds = new HashMap<>();
+        this.records = new Segments();
+        this.names = new Segments();
+        this.nameOffsets = new long[64];
+        this.nameTable = new int[128];
+        this.freeSegments = new ArrayDeque<>();
+    }
+
+    /**
+     * Appends a path with a sort key of 0.
+     *
+     * @param path the path to append
+     * @return always true
+     */
+    @Override
+    public boolean add(Path path) {
+        add(path, 0);
+        return true;
+    }
+
+    /**
+     * Appends a path together with the key used by {@link #sortByKey()}.
+     *
+     * @param path the path to append
+     * @param key  the sort key, e.g. the file size
+     * @throws UncheckedIOException if the spill file cannot be written
+     */
+    public void add(Path path, long key) {
+        long ids = ids(path);
+        records.allocate(RECORD_SIZE);
+        writeRecord(records, size, ids, key);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Appends a path with a sort key of 0 when the index is the size of the store. Inserting in the middle is
+     * unsupported.
+     *
+     * @param index the index to insert at, which must be the size of the store
+     * @param path  the path to append
+     * @throws IndexOutOfBoundsException     if the index is out of range
+     * @throws UnsupportedOperationException if the index is not the size of the store
+     */
+    @Override
+    public void add(int index, Path path) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index != size) {
+            throw new UnsupportedOperationException("Inserting in the middle is not supported");
+        }
+        add(path, 0);
+    }
+
+    /**
+     * Replaces the path stored at the specified index. The sort key of the entry is kept.
+     *
+     * @param index the index of the entry
+     * @param path  the new path
+     * @return the path previously stored at the index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public Path set(int index, Path path) {
+        Path previous = get(index);
+        writeRecord(records, index, ids(path), key(index));
+        return previous;
+    }
+
+    /**
+     * Removes the entry at the specified index and shifts the following entries down.
+     *
+     * @param index the index of the entry
+     * @return the removed path
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public Path remove(int index) {
+        Path previous = get(index);
+        for (int i = index + 1; i < size; i++) {
+            copyRecord(records, i, records, i - 1);
+        }
+        truncate(size - 1);
+        return previous;
+    }
+
+    /**
+     * Removes every entry whose path matches the filter in a single pass.
+     *
+     * @param filter the filter selecting the entries to remove
+     * @return true if any entry was removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Path> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(get(i))) {
+                if (kept != i) {
+                    copyRecord(records, i, records, kept);
+                }
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        truncate(kept);
+        return true;
+    }
+
+    /**
+     * Rebuilds the path stored at the specified index.
+     *
+     * @param index the index of the entry
+     * @return the stored path
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public Path get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        long offset = (long) index * RECORD_SIZE;
+        ByteBuffer segment = records.segment(offset);
+        int position = Segments.position(offset);
+        int directoryId = segment.getInt(position);
+        String name = new String(nameBytes(segment.getInt(position + 4)), StandardCharsets.UTF_8);
+
+        return directoryId == NO_DIRECTORY ? Path.of(name) : directories.get(directoryId).resolve(name);
+    }
+
+    /**
+     * Retrieves the sort key stored at the specified index.
+     *
+     * @param index the index of the entry
+     * @return the sort key
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long getKey(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return key(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sorts the entries by ascending key. The sort is a stable merge sort that works directly on the records, so no
+     * paths are rebuilt and entries with equal keys keep their order. The scratch records are allocated like any
+     * other segment, so a spilled store also sorts through the spill file, reusing the mapped segments released by
+     * earlier sorts.
+     */
+    public void sortByKey() {
+        if (size > 1) {
+            Segments from = records;
+            Segments to = newRecordSegments();
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size; low += 2 * width) {
+                    merge(from, to, low, Math.min(low + width, size), Math.min(low + 2 * width, size));
+                }
+                Segments sorted = to;
+                to = from;
+                from = sorted;
+            }
+            if (from != records) {
+                records.exchange(from);
+            }
+            releaseSegments(records == from ? to : from);
+        }
+        modCount++;
+    }
+
+    /**
+     * Sorts the entries with the specified comparator, or by natural path order when it is null. The sort is stable
+     * and every entry keeps its sort key. Unlike {@link #sortByKey()}, this rebuilds every path once.
+     *
+     * @param comparator the comparator of the paths, or null for natural order
+     */
+    @Override
+    public void sort(Comparator<? super Path> comparator) {
+        Comparator<? super Path> order = comparator == null ? Comparator.<Path>naturalOrder() : comparator;
+        Path[] paths = toArray(new Path[0]);
+        Integer[] indices = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, (a, b) -> order.compare(paths[a], paths[b]));
+
+        Segments sorted = newRecordSegments();
+        for (int i = 0; i < size; i++) {
+            copyRecord(records, indices[i], sorted, i);
+        }
+        records.exchange(sorted);
+        releaseSegments(sorted);
+        modCount++;
+    }
+
+    /**
+     * Checks if the store has spilled part of its data to the memory-mapped file.
+     *
+     * @return true if at least one segment is memory-mapped, false otherwise
+     */
+    public boolean isSpilled() {
+        return spillChannel != null;
+    }
+
+    /**
+     * Retrieves the number of bytes mapped from the spill file.
+     *
+     * @return the size of the spill file
+     */
+    long getSpillBytes() {
+        return spillChannel == null ? 0 : spillBytes;
+    }
+
+    /**
+     * Removes all entries and releases the spill file.
+     */
+    @Override
+    public void clear() {
+        directories.clear();
+        directoryIds.clear();
+        records.clear();
+        names.clear();
+        Arrays.fill(nameTable, 0);
+        nameCount = 0;
+        size = 0;
+        heapBytes = 0;
+        freeSegments.clear();
+        modCount++;
+        closeSpillChannel();
+    }
+
+    /**
+     * Releases the spill file. The store is empty afterwards.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    private int intern(byte[] name) {
+        if (name.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("File name is too long");
+        }
+        int mask = nameTable.length - 1;
+        int slot = Arrays.hashCode(name) & mask;
+        while (nameTable[slot] != 0) {
+            int nameId = nameTable[slot] - 1;
+            if (Arrays.equals(nameBytes(nameId), name)) {
+                return nameId;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        long offset = names.allocate(NAME_HEADER_SIZE + name.length);
+        ByteBuffer segment = names.segment(offset);
+        int position = Segments.position(offset);
+        segment.putShort(position, (short) name.length);
+        segment.put(position + NAME_HEADER_SIZE, name);
+
+        if (nameCount == nameOffsets.length) {
+            nameOffsets = Arrays.copyOf(nameOffsets, nameCount * 2);
+        }
+        nameOffsets[nameCount] = offset;
+        nameTable[slot] = ++nameCount;
+
+        if (nameCount * 2 > nameTable.length) {
+            rehashNames();
+        }
+        return nameCount - 1;
+    }
+
+    private void rehashNames() {
+        nameTable = new int[nameTable.length * 2];
+        int mask = nameTable.length - 1;
+        for (int nameId = 0; nameId < nameCount; nameId++) {
+            int slot = Arrays.hashCode(nameBytes(nameId)) & mask;
+            while (nameTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            nameTable[slot] = nameId + 1;
+        }
+    }
+
+    private byte[] nameBytes(int nameId) {
+        long offset = nameOffsets[nameId];
+        ByteBuffer segment = names.segment(offset);
+        int position = Segments.position(offset);
+        byte[] name = new byte[segment.getShort(position) & MAX_NAME_LENGTH];
+        segment.get(position + NAME_HEADER_SIZE, name);
+        return name;
+    }
+
+    private long key(int index) {
+        return key(records, index);
+    }
+
+    /**
+     * Encodes the directory id and name id of a path into the first eight bytes of a record.
+     */
+    private long ids(Path path) {
+        Path fileName = path.getFileName();
+        Path parent = fileName == null ? path : path.getParent();
+
+        int directoryId = parent == null ? NO_DIRECTORY : directoryIds.computeIfAbsent(parent, p -> {
+            directories.add(p);
+            return directories.size() - 1;
+        });
+        int nameId = intern(fileName == null ? new byte[0] : fileName.toString().getBytes(StandardCharsets.UTF_8));
+
+        return ((long) directoryId << 32) | (nameId & 0xFFFFFFFFL);
+    }
+
+    private static void writeRecord(Segments segments, int index, long ids, long key) {
+        long offset = (long) index * RECORD_SIZE;
+        ByteBuffer segment = segments.segment(offset);
+        int position = Segments.position(offset);
+        segment.putLong(position, ids);
+        segment.putLong(position + 8, key);
+    }
+
+    private static void copyRecord(Segments source, int sourceIndex, Segments target, int targetIndex) {
+        long offset = (long) sourceIndex * RECORD_SIZE;
+        ByteBuffer segment = source.segment(offset);
+        int position = Segments.position(offset);
+        writeRecord(target, targetIndex, segment.getLong(position), segment.getLong(position + 8));
+    }
+
+    private static long key(Segments segments, int index) {
+        long offset = (long) index * RECORD_SIZE;
+        return segments.segment(offset).getLong(Segments.position(offset) + 8);
+    }
+
+    /**
+     * Merges the sorted runs [low, mid) and [mid, high) of one segment sequence into another, taking from the left
+     * run on equal keys.
+     */
+    private static void merge(Segments from, Segments to, int low, int mid, int high) {
+        int left = low;
+        int right = mid;
+        for (int target = low; target < high; target++) {
+            if (left < mid && (right >= high || key(from, left) <= key(from, right))) {
+                copyRecord(from, left++, to, target);
+            } else {
+                copyRecord(from, right++, to, target);
+            }
+        }
+    }
+
+    /**
+     * Allocates scratch segments for as many records as the store holds.
+     */
+    private Segments newRecordSegments() {
+        Segments segments = new Segments();
+        for (int i = 0; i < size; i++) {
+            segments.allocate(RECORD_SIZE);
+        }
+        return segments;
+    }
+
+    /**
+     * Shrinks the store to the specified number of entries, dropping the segments no longer needed.
+     */
+    private void truncate(int newSize) {
+        Segments dropped = records.truncate((long) newSize * RECORD_SIZE);
+        releaseSegments(dropped);
+        size = newSize;
+        modCount++;
+    }
+
+    /**
+     * Releases segments that are no longer used. Heap segments return their budget and are left to the garbage
+     * collector; mapped segments go to the free list, since their place in the spill file cannot be given back.
+     */
+    private void releaseSegments(Segments segments) {
+        for (ByteBuffer buffer : segments.buffers) {
+            if (buffer.isDirect()) {
+                freeSegments.push(buffer);
+            } else {
+                heapBytes -= SEGMENT_SIZE;
+            }
+        }
+        segments.clear();
+    }
+
+    /**
+     * Reuses a released mapped segment if there is one, and otherwise allocates a new segment on the heap while the
+     * spill threshold allows it, or maps it from the spill file.
+     */
+    private ByteBuffer newSegment() {
+        if (!freeSegments.isEmpty()) {
+            return freeSegments.pop();
+        }
+        if (heapBytes + SEGMENT_SIZE <= spillThreshold) {
+            heapBytes += SEGMENT_SIZE;
+            return ByteBuffer.allocate(SEGMENT_SIZE);
+        }
+        try {
+            if (spillChannel == null) {
+                Path spillFile = Files.createTempFile("compact-path-store", ".bin");
+                spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+                spillBytes = 0;
+            }
+            ByteBuffer segment = spillChannel.map(FileChannel.MapMode.READ_WRITE, spillBytes, SEGMENT_SIZE);
+            spillBytes += SEGMENT_SIZE;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeSpillChannel() {
+        if (spillChannel == null) {
+            return;
+        }
+        try {
+            spillChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        spillChannel = null;
+    }
+
+    /**
+     * A growable sequence of fixed-size segments addressed by a flat offset. An allocation never crosses a
+     * segment boundary.
+     */
+    private final class Segments {
+
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        private int tail = SEGMENT_SIZE;
+
+        private long allocate(int length) {
+            if (tail + length > SEGMENT_SIZE) {
+                buffers.add(newSegment());
+                tail = 0;
+            }
+            long offset = (long) (buffers.size() - 1) * SEGMENT_SIZE + tail;
+            tail += length;
+            return offset;
+        }
+
+        private ByteBuffer segment(long offset) {
+            return buffers.get((int) (offset / SEGMENT_SIZE));
+        }
+
+        private static int position(long offset) {
+            return (int) (offset % SEGMENT_SIZE);
+        }
+
+        /**
+         * Drops every segment beyond the specified length and returns them.
+         */
+        private Segments truncate(long length) {
+            int kept = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            Segments dropped = new Segments();
+            while (buffers.size() > kept) {
+                dropped.buffers.add(buffers.remove(buffers.size() - 1));
+            }
+            tail = kept == 0 ? SEGMENT_SIZE : (int) (length - (long) (kept - 1) * SEGMENT_SIZE);
+            return dropped;
+        }
+
+        /**
+         * Swaps the contents of this sequence with another one.
+         */
+        private void exchange(Segments other) {
+            List<ByteBuffer> otherBuffers = new ArrayList<>(other.buffers);
+            int otherTail = other.tail;
+            other.buffers.clear();
+            other.buffers.addAll(buffers);
+            other.tail = tail;
+            buffers.clear();
+            buffers.addAll(otherBuffers);
+            tail = otherTail;
+        }
+
+        private void clear() {
+            buffers.clear();
+            tail = SEGMENT_SIZE;
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package org.example.summary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BloomSummaryStore class keeps a sidecar summary for every directory of a mostly static tree. A summary holds
+ * a Bloom filter of the byte trigrams of the directory's files, the modification time and size of each of those
+ * files, the names of its subdirectories and the directory's own modification time. Summaries are written while a
+ * normal search reads the files, and later searches use them to skip a whole subtree when every summary in it is
+ * still valid and rules out the text.
+ * <p>
+ * A summary is thrown away as soon as the directory or one of its files has a different modification time, or a
+ * file has a different size. Directories whose files could not all be read, or whose content has too many distinct
+ * trigrams for a useful filter, are not summarized and are therefore never skipped.
+ */
+public class BloomSummaryStore {
+
+    private static final int MAGIC = 0x424C4D31;
+    private static final String SUFFIX = ".bloom";
+    private static final int BITS_PER_TRIGRAM = 10;
+    private static final int HASHES = 7;
+    private static final int MIN_BITS = 1 << 9;
+    private static final int MAX_BITS = 1 << 20;
+    private static final int MAX_TRIGRAMS = MAX_BITS / BITS_PER_TRIGRAM;
+
+    /**
+     * The Access enum selects whether a search only uses the summaries or also writes them.
+     */
+    public enum Access {
+
+        /**
+         * Summaries are used to skip subtrees but never written.
+         */
+        READ,
+
+        /**
+         * Summaries are used to skip subtrees and written for every visited directory.
+         */
+        READ_WRITE
+    }
+
+    /**
+     * The directory holding one summary file per summarized directory.
+     */
+    private final Path storeDirectory;
+
+    /**
+     * Constructs a new BloomSummaryStore that keeps its summaries in the specified directory.
+     *
+     * @param storeDirectory the directory for the summary files, created if missing
+     * @throws UncheckedIOException if the directory cannot be created
+     */
+    public BloomSummaryStore(Path storeDirectory) {
+        try {
+            this.storeDirectory = Files.createDirectories(storeDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a lookup that answers whether subtrees can be skipped for the specified text during one search.
+     *
+     * @param textToSearch the text to search for
+     * @return the lookup
+     */
+    public Lookup lookup(String textToSearch) {
+        return new Lookup(textToSearch);
+    }
+
+    /**
+     * Starts collecting the summary of a directory.
+     *
+     * @param directory the directory
+     * @param attrs     the directory attributes
+     * @return the builder of the summary
+     */
+    public Builder builder(Path directory, BasicFileAttributes attrs) {
+        return new Builder(directory, attrs);
+    }
+
+    private Path summaryFile(Path directory) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key(directory).getBytes(StandardCharsets.UTF_8));
+            return this.storeDirectory.resolve(HexFormat.of().formatHex(digest) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String key(Path directory) {
+        return directory.toAbsolutePath().normalize().toString();
+    }
+
+    private static long nanos(BasicFileAttributes attrs) {
+        return attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private DirectorySummary load(Path directory) {
+        Path summaryFile = summaryFile(directory);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(summaryFile)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(key(directory))) {
+                return null;
+            }
+            long modified = in.readLong();
+
+            Map<String, long[]> files = new HashMap<>();
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                files.put(in.readUTF(), new long[] { in.readLong(), in.readLong() });
+            }
+            List<String> directories = new ArrayList<>();
+            int directoryCount = in.readInt();
+            for (int i = 0; i < directoryCount; i++) {
+                directories.add(in.readUTF());
+            }
+            long[] bits = new long[in.readInt()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = in.readLong();
+            }
+            return new DirectorySummary(modified, files, directories, bits);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void write(Path directory, DirectorySummary summary) {
+        Path summaryFile = summaryFile(directory);
+        try {
+            Path tempFile = Files.createTempFile(this.storeDirectory, "summary", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(key(directory));
+                out.writeLong(summary.modified());
+                out.writeInt(summary.files().size());
+                for (Map.Entry<String, long[]> file : summary.files().entrySet()) {
+                    out.writeUTF(file.getKey());
+                    out.writeLong(file.getValue()[0]);
+                    out.writeLong(file.getValue()[1]);
+                }
+                out.writeInt(summary.directories().size());
+                for (String child : summary.directories()) {
+                    out.writeUTF(child);
+                }
+                out.writeInt(summary.bits().length);
+                for (long word : summary.bits()) {
+                    out.writeLong(word);
+                }
+            }
+            Files.move(tempFile, summaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void delete(Path directory) {
+        try {
+            Files.deleteIfExists(summaryFile(directory));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int hash(int trigram, int i, int bitCount) {
+        int h1 = trigram * 0x9E3779B9;
+        int h2 = Integer.rotateLeft(trigram * 0x85EBCA6B, 15) | 1;
+        return (h1 + i * h2) & (bitCount - 1);
+    }
+
+    /**
+     * The stored summary of one directory.
+     *
+     * @param modified    the modification time of the directory in nanoseconds
+     * @param files       the modification time in nanoseconds and the size of every file, keyed by name
+     * @param directories the names of the subdirectories
+     * @param bits        the Bloom filter of the trigrams of all files
+     */
+    private record DirectorySummary(long modified, Map<String, long[]> files, List<String> directories, long[] bits) {
+
+        private boolean mayContain(int[] trigrams) {
+            int bitCount = this.bits.length * Long.SIZE;
+            for (int trigram : trigrams) {
+                for (int i = 0; i < HASHES; i++) {
+                    int bit = hash(trigram, i, bitCount);
+                    if ((this.bits[bit >>> 6] & (1L << bit)) == 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The BloomSummaryStore.Lookup class decides for one search whether a subtree can be skipped and whether the
+     * summary of a directory is still valid. Decisions are remembered, so every summary is checked at most once per
+     * search. Stale summaries found on the way are deleted.
+     */
+    public final class Lookup {
+
+        /**
+         * The trigrams of the text, or null when the text is too short to rule anything out.
+         */
+        private final int[] trigrams;
+        private final Map<Path, Boolean> decisions;
+        /**
+         * Whether the summary of every checked directory exists and is still valid.
+         */
+        private final Map<Path, Boolean> validities;
+
+        private Lookup(String textToSearch) {
+            byte[] needle = textToSearch == null ? new byte[0] : textToSearch.getBytes(Charset.defaultCharset());
+            this.trigrams = needle.length < 3 ? null : distinctTrigrams(needle);
+            this.decisions = new HashMap<>();
+            this.validities = new HashMap<>();
+        }
+
+        /**
+         * Checks if a directory has a summary that is still valid, so it does not have to be collected again.
+         *
+         * @param directory the directory
+         * @return true if the stored summary matches the directory and its files, false otherwise
+         */
+        public boolean isCurrent(Path directory) {
+            Boolean validity = this.validities.get(directory);
+            return validity == null ? validSummary(directory) != null : validity;
+        }
+
+        /**
+         * Checks if the summaries prove that no file in the subtree of a directory contains the text.
+         *
+         * @param directory the root of the subtree
+         * @return true if the subtree can be skipped, false otherwise
+         */
+        public boolean rulesOut(Path directory) {
+            if (this.trigrams == null) {
+                return false;
+            }
+            Boolean decision = this.decisions.get(directory);
+            if (decision == null) {
+                decision = check(directory);
+                this.decisions.put(directory, decision);
+            }
+            return decision;
+        }
+
+        private boolean check(Path directory) {
+            DirectorySummary summary = validSummary(directory);
+            if (summary == null) {
+                return false;
+            }
+            if (summary.mayContain(this.trigrams)) {
+                return false;
+            }
+            for (String child : summary.directories()) {
+                if (!rulesOut(directory.resolve(child))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Loads the summary of a directory and deletes it if it is stale.
+         *
+         * @param directory the directory
+         * @return the summary, or null if there is no valid summary
+         */
+        private DirectorySummary validSummary(Path directory) {
+            DirectorySummary summary = load(directory);
+            if (summary != null && !isValid(directory, summary)) {
+                delete(directory);
+                summary = null;
+            }
+            this.validities.put(directory, summary != null);
+            return summary;
+        }
+
+        private boolean isValid(Path directory, DirectorySummary summary) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(directory, BasicFileAttributes.class);
+                if (nanos(attrs) != summary.modified()) {
+                    return false;
+                }
+                for (Map.Entry<String, long[]> file : summary.files().entrySet()) {
+                    BasicFileAttributes fileAttrs = Files.readAttributes(directory.resolve(file.getKey()),
+                            BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (nanos(fileAttrs) != file.getValue()[0] || fileAttrs.size() != file.getValue()[1]) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private static int[] distinctTrigrams(byte[] needle) {
+            int[] trigrams = new int[needle.length - 2];
+            for (int i = 0; i < trigrams.length; i++) {
+                trigrams[i] = trigram(needle[i], needle[i + 1], needle[i + 2]);
+            }
+            return Arrays.stream(trigrams).distinct().toArray();
+        }
+    }
+
+    /**
+     * The BloomSummaryStore.Builder class collects the summary of one directory while its files are read. The
+     * summary is only saved if every file of the directory was read to the end. The files of the directory may be
+     * read concurrently.
+     */
+    public final class Builder {
+
+        private final Path directory;
+        private final long modified;
+        private final Map<String, long[]> files;
+        private final List<String> directories;
+        private final TrigramSet trigrams;
+        private boolean complete;
+
+        private Builder(Path directory, BasicFileAttributes attrs) {
+            this.directory = directory;
+            this.modified = nanos(attrs);
+            this.files = new HashMap<>();
+            this.directories = new ArrayList<>();
+            this.trigrams = new TrigramSet();
+            this.complete = true;
+        }
+
+        /**
+         * Retrieves the directory this summary is collected for.
+         *
+         * @return the directory
+         */
+        public Path getDirectory() {
+            return this.directory;
+        }
+
+        /**
+         * Records a file of the directory. Symbolic links are not summarized, so they make the summary incomplete.
+         *
+         * @param file  the file
+         * @param attrs the file attributes, without following links
+         */
+        public synchronized void addFile(Path file, BasicFileAttributes attrs) {
+            if (attrs.isSymbolicLink()) {
+                this.complete = false;
+                return;
+            }
+            this.files.put(file.getFileName().toString(), new long[] { nanos(attrs), attrs.size() });
+        }
+
+        /**
+         * Records a subdirectory of the directory.
+         *
+         * @param child the subdirectory
+         */
+        public synchronized void addDirectory(Path child) {
+            this.directories.add(child.getFileName().toString());
+        }
+
+        /**
+         * Creates the feed that receives the content of one file of the directory.
+         *
+         * @return the feed
+         */
+        public TrigramFeed newFeed() {
+            return new TrigramFeed(this.trigrams);
+        }
+
+        /**
+         * Marks the summary as incomplete, e.g. because a file was not read to the end.
+         */
+        public synchronized void markIncomplete() {
+            this.complete = false;
+        }
+
+        /**
+         * Saves the summary if it is complete and useful, and deletes any older summary otherwise.
+         */
+        public synchronized void save() {
+            long[] bits;
+            synchronized (this.trigrams) {
+                bits = this.complete && !this.trigrams.isSaturated() ? this.trigrams.toBloomFilter() : null;
+            }
+            if (bits == null) {
+                delete(this.directory);
+                return;
+            }
+            write(this.directory, new DirectorySummary(this.modified, this.files, this.directories, bits));
+        }
+    }
+
+    /**
+     * The BloomSummaryStore.TrigramFeed class receives the content of one file in chunks and adds its trigrams to
+     * the summary of the file's directory. A feed is used by one thread, but feeds of the same directory may be used
+     * concurrently.
+     */
+    public static final class TrigramFeed {
+
+        private final TrigramSet trigrams;
+        private int history;
+        private int historyLength;
+        private boolean complete;
+
+        private TrigramFeed(TrigramSet trigrams) {
+            this.trigrams = trigrams;
+        }
+
+        /**
+         * Adds the trigrams of the bytes between two indexes of a buffer, continuing from the previous chunk.
+         *
+         * @param buffer the buffer
+         * @param from   the index of the first new byte
+         * @param to     the index after the last new byte
+         */
+        public void add(ByteBuffer buffer, int from, int to) {
+            synchronized (this.trigrams) {
+                for (int i = from; i < to; i++) {
+                    this.history = ((this.history << 8) | (buffer.get(i) & 0xFF)) & 0xFFFFFF;
+                    if (++this.historyLength >= 3) {
+                        this.trigrams.add(this.history);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks the content as read to the end.
+         */
+        public void complete() {
+            this.complete = true;
+        }
+
+        /**
+         * Checks if the content was read to the end.
+         *
+         * @return true if the content was read to the end, false otherwise
+         */
+        public boolean isComplete() {
+            return this.complete;
+        }
+    }
+
+    private static int trigram(byte b0, byte b1, byte b2) {
+        return (b0 & 0xFF) << 16 | (b1 & 0xFF) << 8 | (b2 & 0xFF);
+    }
+
+    /**
+     * An open-addressing set of distinct trigrams that gives up once it has too many entries for a useful filter.
+     */
+    private static final class TrigramSet {
+
+        private int[] table = new int[1024];
+        private int size;
+        private boolean saturated;
+
+        private TrigramSet() {
+            Arrays.fill(this.table, -1);
+        }
+
+        private void add(int trigram) {
+            if (this.saturated) {
+                return;
+            }
+            int mask = this.table.length - 1;
+            int slot = (trigram * 0x9E3779B9) & mask;
+            while (this.table[slot] != -1) {
+                if (this.table[slot] == trigram) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            this.table[slot] = trigram;
+            if (++this.size > MAX_TRIGRAMS) {
+                this.saturated = true;
+                this.table = new int[0];
+            } else if (this.size * 2 > this.table.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] old = this.table;
+            this.table = new int[old.length * 2];
+            Arrays.fill(this.table, -1);
+            int mask = this.table.length - 1;
+            for (int trigram : old) {
+                if (trigram != -1) {
+                    int slot = (trigram * 0x9E3779B9) & mask;
+                    while (this.table[slot] != -1) {
+                        slot = (slot + 1) & mask;
+                    }
+                    this.table[slot] = trigram;
+                }
+            }
+        }
+
+        private boolean isSaturated() {
+            return this.saturated;
+        }
+
+        private long[] toBloomFilter() {
+            int bitCount = Math.max(MIN_BITS, Integer.highestOneBit(Math.max(1, this.size * BITS_PER_TRIGRAM - 1)) << 1);
+            long[] bits = new long[bitCount / Long.SIZE];
+            for (int trigram : this.table) {
+                if (trigram != -1) {
+                    for (int i = 0; i < HASHES; i++) {
+                        int bit = hash(trigram, i, bitCount);
+                        bits[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+            return bits;
+        }
+    }
+}
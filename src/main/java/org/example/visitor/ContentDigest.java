@@ -0,0 +1,73 @@
+package org.example.visitor;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The ContentDigest class computes the SHA-256 digest of one file from the chunks {@link PooledTextScanner} reads
+ * anyway, so finding identical copies does not read a file a second time. The message digest is kept per thread and
+ * reused.
+ */
+final class ContentDigest {
+
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final MessageDigest messageDigest;
+    private boolean complete;
+
+    /**
+     * Constructs a new ContentDigest on the message digest of the current thread.
+     */
+    ContentDigest() {
+        this.messageDigest = MESSAGE_DIGESTS.get();
+        this.messageDigest.reset();
+    }
+
+    /**
+     * Adds the bytes between two indexes of a buffer, continuing from the previous chunk. The position and limit of
+     * the buffer are left unchanged.
+     *
+     * @param buffer the buffer
+     * @param from   the index of the first new byte
+     * @param to     the index after the last new byte
+     */
+    void add(ByteBuffer buffer, int from, int to) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        buffer.limit(to).position(from);
+        this.messageDigest.update(buffer);
+        buffer.limit(limit).position(position);
+    }
+
+    /**
+     * Marks the content as read to the end.
+     */
+    void complete() {
+        this.complete = true;
+    }
+
+    /**
+     * Checks if the content was read to the end.
+     *
+     * @return true if the content was read to the end, false otherwise
+     */
+    boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Finishes the digest. Must be called on the thread that read the content.
+     *
+     * @return the digest, or null if the content was not read to the end
+     */
+    byte[] digest() {
+        return this.complete ? this.messageDigest.digest() : null;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.visitor;
+
+/**
+ * The Deduplication enum selects how {@link FileTextRecognitionVisitor} avoids scanning the same content twice.
+ * Whatever the mode, the result of a scan is applied to every path that leads to the same content.
+ */
+public enum Deduplication {
+
+    /**
+     * Every visited path is scanned.
+     */
+    NONE,
+
+    /**
+     * Paths that share a {@link java.nio.file.attribute.BasicFileAttributes#fileKey() file key}, such as hardlinks
+     * or symbolic links to the same file, are scanned once. Symbolic links are followed and loops are skipped.
+     * Hardlinked files are remembered for the whole walk, other files only for a bounded number of recent files.
+     */
+    FILE_KEY,
+
+    /**
+     * In addition to {@link #FILE_KEY}, separate copies of an archive with identical content are unpacked once.
+     * Content is hashed while it is scanned, so every path is still read once, and regular files are read to the end.
+     * Only a bounded number of recent sizes, and of contents per size, is remembered.
+     */
+    CONTENT
+}
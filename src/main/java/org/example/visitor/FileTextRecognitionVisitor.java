@@ -1,9 +1,18 @@
 package org.example.visitor;
 
+import org.example.cache.SearchCache;
+import org.example.finder.SearchOptions;
+import org.example.store.CompactPathStore;
+import org.example.summary.BloomSummaryStore;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -11,7 +20,8 @@ import java.util.zip.ZipFile;
 /**
  * The FileTextRecognitionVisitor class is a visitor implementation that traverses a file system hierarchy and
  * identifies files that contain a specific text. It supports searching for text in regular files as well as
- * compressed files (e.g., ZIP files).
+ * compressed files (e.g., ZIP files). {@link #visitFile} may be called concurrently, e.g. by an
+ * {@link org.example.scheduler.IoScheduler}.
  */
 public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
 
@@ -28,13 +38,78 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
             new byte[] { 20, 0, 8, 0}
     );
     /**
-     * The list of files that contain the specified text.
+     * The number of leading bytes compared with the archive signatures.
+     */
+    static final int ARCHIVE_SIGNATURE_LENGTH = 4;
+    /**
+     * The number of single-link files whose results are kept for files reached again through a symbolic link.
+     */
+    static final int MAX_RECENT_FILE_KEYS = 1 << 16;
+    /**
+     * The number of distinct file sizes whose scanned files are kept for finding identical copies.
+     */
+    static final int MAX_TRACKED_SIZES = 1 << 16;
+    /**
+     * The number of distinct contents kept per file size.
      */
-    private final List<Path> fileContainsText;
+    static final int MAX_CONTENTS_PER_SIZE = 8;
+    /**
+     * The files that contain the specified text, keyed by file size.
+     */
+    private final CompactPathStore fileContainsText;
     /**
      * The text to search for in the files.
      */
     private final String textToSearch;
+    /**
+     * The scanner that searches file contents for the text with pooled buffers.
+     */
+    private final PooledTextScanner textScanner;
+    /**
+     * The cache of per-file results shared between searches, or null when results are not cached.
+     */
+    private final SearchCache searchCache;
+    /**
+     * The way repeated content is detected.
+     */
+    private final Deduplication deduplication;
+    /**
+     * The number of matches of every scanned file with more than one hardlink, keyed by file key.
+     */
+    private final Map<Object, Integer> matchesByLinkedFileKey;
+    /**
+     * The number of matches of the most recently scanned files with a single hardlink, keyed by file key. These
+     * can only be reached again through a symbolic link, usually close by in the walk.
+     */
+    private final Map<Object, Integer> matchesByRecentFileKey;
+    /**
+     * The most recently seen file sizes with the files scanned at that size, used to find identical copies.
+     */
+    private final Map<Long, List<ScannedContent>> contentsBySize;
+    /**
+     * The store of directory summaries, or null when summaries are not used.
+     */
+    private final BloomSummaryStore summaryStore;
+    /**
+     * The lookup that decides which subtrees are skipped, or null when summaries are not used.
+     */
+    private final BloomSummaryStore.Lookup summaryLookup;
+    /**
+     * Whether summaries are written for the visited directories.
+     */
+    private final boolean updateSummaries;
+    /**
+     * The summaries of the directories currently being visited, keyed by directory.
+     */
+    private final Map<Path, BloomSummaryStore.Builder> summaryBuilders;
+    /**
+     * The feed that receives the content of the file the current thread is scanning, or null.
+     */
+    private final ThreadLocal<BloomSummaryStore.TrigramFeed> currentFeed;
+    /**
+     * The digest that receives the content of the file the current thread is scanning, or null.
+     */
+    private final ThreadLocal<ContentDigest> currentDigest;
 
     /**
      * Constructs a new FileTextRecognitionVisitor with the specified text to search.
@@ -42,8 +117,123 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
      * @param textToSearch the text to search for in the files
      */
     public FileTextRecognitionVisitor(String textToSearch) {
-        this.fileContainsText = new ArrayList<>();
+        this(textToSearch, SearchOptions.builder().build());
+    }
+
+    /**
+     * Constructs a new FileTextRecognitionVisitor with the specified text to search that reuses the per-file
+     * results held by the given cache.
+     *
+     * @param textToSearch the text to search for in the files
+     * @param searchCache  the cache of per-file results, or null to read every file
+     */
+    public FileTextRecognitionVisitor(String textToSearch, SearchCache searchCache) {
+        this(textToSearch, searchCache, Deduplication.NONE);
+    }
+
+    /**
+     * Constructs a new FileTextRecognitionVisitor with the specified text to search that scans repeated content
+     * only once, as selected by the deduplication mode.
+     *
+     * @param textToSearch  the text to search for in the files
+     * @param searchCache   the cache of per-file results, or null to read every file
+     * @param deduplication the way repeated content is detected
+     */
+    public FileTextRecognitionVisitor(String textToSearch, SearchCache searchCache, Deduplication deduplication) {
+        this(textToSearch, searchCache, deduplication, null, BloomSummaryStore.Access.READ);
+    }
+
+    /**
+     * Constructs a new FileTextRecognitionVisitor with the specified text to search that reads files as selected by
+     * the options. The visitor uses the cache, deduplication mode and directory summaries of the options; walking
+     * the tree, and scheduling the reads, is left to the caller. Summaries can only be written by a walk that visits
+     * every file of a directory between the pre-visit and post-visit callbacks of that directory, as both
+     * {@link Files#walkFileTree} and {@link org.example.scheduler.IoScheduler} do.
+     *
+     * @param textToSearch the text to search for in the files
+     * @param options      the options of the search
+     * @throws IllegalArgumentException if no options are given
+     */
+    public FileTextRecognitionVisitor(String textToSearch, SearchOptions options) {
+        this(textToSearch, validOptions(options).getSearchCache(), options.getDeduplication(),
+                options.getSummaryStore(), options.getSummaryAccess());
+    }
+
+    /**
+     * Constructs a new FileTextRecognitionVisitor from the individual options.
+     */
+    private FileTextRecognitionVisitor(String textToSearch, SearchCache searchCache, Deduplication deduplication,
+                                       BloomSummaryStore summaryStore, BloomSummaryStore.Access summaryAccess) {
+        this.fileContainsText = new CompactPathStore();
         this.textToSearch = textToSearch;
+        this.textScanner = new PooledTextScanner(textToSearch);
+        this.searchCache = searchCache;
+        this.deduplication = deduplication;
+        this.matchesByLinkedFileKey = new ConcurrentHashMap<>();
+        this.matchesByRecentFileKey = Collections.synchronizedMap(lruMap(MAX_RECENT_FILE_KEYS));
+        this.contentsBySize = lruMap(MAX_TRACKED_SIZES);
+        this.summaryStore = summaryStore;
+        this.summaryLookup = summaryStore == null ? null : summaryStore.lookup(textToSearch);
+        this.updateSummaries = summaryStore != null && summaryAccess == BloomSummaryStore.Access.READ_WRITE;
+        this.summaryBuilders = new ConcurrentHashMap<>();
+        this.currentFeed = new ThreadLocal<>();
+        this.currentDigest = new ThreadLocal<>();
+    }
+
+    /**
+     * Checks that options are given.
+     */
+    private static SearchOptions validOptions(SearchOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Your options are not valid");
+        }
+        return options;
+    }
+
+    /**
+     * Skips the directory if its summaries rule out the text. Otherwise its summary is collected while its files are
+     * read, unless the stored summary is still valid.
+     *
+     * @param dir   the directory to visit
+     * @param attrs the directory attributes
+     * @return the visit result
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (this.summaryLookup != null) {
+            BloomSummaryStore.Builder parent = summaryBuilderFor(dir);
+            if (parent != null) {
+                parent.addDirectory(dir);
+            }
+            if (this.summaryLookup.rulesOut(dir)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            if (this.updateSummaries && !this.summaryLookup.isCurrent(dir)) {
+                this.summaryBuilders.put(dir, this.summaryStore.builder(dir, attrs));
+            }
+        }
+        return super.preVisitDirectory(dir, attrs);
+    }
+
+    /**
+     * Saves the summary of the directory once all of its entries have been visited.
+     *
+     * @param dir the visited directory
+     * @param exc the failure that ended the iteration, or null
+     * @return the visit result
+     * @throws IOException if the iteration failed
+     */
+    @Override
+    public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        BloomSummaryStore.Builder builder = this.summaryBuilders.remove(dir);
+        if (builder != null) {
+            if (exc != null) {
+                builder.markIncomplete();
+            }
+            builder.save();
+        }
+        return super.postVisitDirectory(dir, exc);
     }
 
     /**
@@ -58,24 +248,331 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 
-        if (Files.isRegularFile(file)){
+        BloomSummaryStore.Builder builder = summaryBuilderFor(file);
+        if (builder != null) {
+            builder.addFile(file, attrs);
+        }
+
+        if (attrs.isRegularFile() || Files.isRegularFile(file)){
 
-            if (isFileArchive(file.toFile())){
-                this.fileContainsText.addAll(processCompressedFile(file));
+            BloomSummaryStore.TrigramFeed previousFeed = this.currentFeed.get();
+            BloomSummaryStore.TrigramFeed feed = builder == null ? null : builder.newFeed();
+            int matches;
+            this.currentFeed.set(feed);
+            try {
+                matches = this.deduplication == Deduplication.NONE ? countMatches(file, attrs) : countMatchesOnce(file, attrs);
+            } finally {
+                this.currentFeed.set(previousFeed);
+            }
+            if (builder != null && !feed.isComplete()) {
+                builder.markIncomplete();
             }
-            else if (isFileValid(file) && containsTextInFile(file)) {
-                this.fileContainsText.add(file);
+            long size = attrs.isSymbolicLink() ? getFileSize(file) : attrs.size();
+
+            synchronized (this.fileContainsText) {
+                for (int i = 0; i < matches; i++) {
+                    this.fileContainsText.add(file, size);
+                }
             }
         }
         return super.visitFile(file, attrs);
     }
 
+    /**
+     * Skips directories that would close a symbolic link loop and reports any other failure.
+     *
+     * @param file the file that could not be visited
+     * @param exc  the failure
+     * @return the visit result
+     * @throws IOException if the failure is not a symbolic link loop
+     */
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+        if (exc instanceof FileSystemLoopException) {
+            return FileVisitResult.CONTINUE;
+        }
+        BloomSummaryStore.Builder builder = summaryBuilderFor(file);
+        if (builder != null) {
+            builder.markIncomplete();
+        }
+        return super.visitFileFailed(file, exc);
+    }
+
+    /**
+     * Retrieves the summary being collected for the directory that contains a path.
+     *
+     * @param path the file or directory
+     * @return the summary of its parent directory, or null if none is being collected
+     */
+    private BloomSummaryStore.Builder summaryBuilderFor(Path path) {
+        if (this.summaryBuilders.isEmpty()) {
+            return null;
+        }
+        Path parent = path.getParent();
+        return parent == null ? null : this.summaryBuilders.get(parent);
+    }
+
+    /**
+     * Scans a file and counts how many times it has to be reported. A regular file is reported once when it
+     * matches, an archive once for every matching entry. Without a search cache, the file is opened once and
+     * recognized as an archive from the first chunk read.
+     *
+     * @param file  the file to scan
+     * @param attrs the file attributes
+     * @return the number of matches
+     */
+    private int countMatches(Path file, BasicFileAttributes attrs) {
+        if (this.searchCache == null) {
+            PooledTextScanner.Scan scan = scanFile(file);
+            if (scan == PooledTextScanner.Scan.ARCHIVE) {
+                return processCompressedFile(file).size();
+            }
+            return scan == PooledTextScanner.Scan.FOUND ? 1 : 0;
+        }
+        if (isArchive(file, attrs)) {
+            return processCompressedFile(file).size();
+        }
+        return isFileValid(file) && containsText(file, attrs) ? 1 : 0;
+    }
+
+    /**
+     * Counts the matches of a file, reusing the result of a file with the same file key or, in
+     * {@link Deduplication#CONTENT} mode, the same content. Results of files with more than one hardlink are kept for
+     * the whole walk; those of other files only for the {@link #MAX_RECENT_FILE_KEYS} most recent ones, so a file
+     * reached again through a symbolic link much later in the walk is scanned again. Finding the link count costs
+     * one extra stat per file in this mode.
+     *
+     * @param file  the file to scan
+     * @param attrs the file attributes
+     * @return the number of matches
+     */
+    private int countMatchesOnce(Path file, BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        Integer knownMatches = fileKey == null ? null : knownMatches(fileKey);
+        if (knownMatches != null) {
+            return knownMatches;
+        }
+
+        int matches = this.deduplication == Deduplication.CONTENT
+                ? countMatchesByContent(file, attrs)
+                : countMatches(file, attrs);
+
+        if (fileKey != null) {
+            if (linkCount(file) > 1) {
+                this.matchesByLinkedFileKey.put(fileKey, matches);
+            } else {
+                this.matchesByRecentFileKey.put(fileKey, matches);
+            }
+        }
+        return matches;
+    }
+
+    private Integer knownMatches(Object fileKey) {
+        Integer matches = this.matchesByLinkedFileKey.get(fileKey);
+        return matches != null ? matches : this.matchesByRecentFileKey.get(fileKey);
+    }
+
+    /**
+     * Retrieves the number of hardlinks of a file.
+     *
+     * @param file the file
+     * @return the link count, or 1 when it is not available
+     */
+    private static int linkCount(Path file) {
+        try {
+            return Files.getAttribute(file, "unix:nlink") instanceof Integer count ? count : 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return 1;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return 1;
+    }
+
+    /**
+     * Counts the matches of a file and remembers them by content, so an identical copy of an archive is not
+     * unpacked again. The digest of a regular file is computed from the chunks read while scanning it, so the file is
+     * read once, though always to its end. An archive is hashed in a read of its own before it is unpacked. Only the
+     * {@link #MAX_TRACKED_SIZES} most recently seen sizes and the {@link #MAX_CONTENTS_PER_SIZE} most recent contents
+     * per size are kept. Only the table lookup and insert are serialized, so concurrent visits scan in parallel.
+     *
+     * @param file  the file to scan
+     * @param attrs the file attributes
+     * @return the number of matches
+     */
+    private int countMatchesByContent(Path file, BasicFileAttributes attrs) {
+        if (this.searchCache == null) {
+            return countMatchesByContentOnce(file, attrs);
+        }
+        if (isArchive(file, attrs)) {
+            return countArchiveMatchesByContent(file, attrs);
+        }
+        if (!isFileValid(file)) {
+            return 0;
+        }
+
+        ContentDigest previousDigest = this.currentDigest.get();
+        ContentDigest contentDigest = new ContentDigest();
+        int matches;
+        this.currentDigest.set(contentDigest);
+        try {
+            matches = containsText(file, attrs) ? 1 : 0;
+        } finally {
+            this.currentDigest.set(previousDigest);
+        }
+
+        byte[] digest = contentDigest.digest();
+        if (digest != null) {
+            rememberContent(attrs.size(), digest, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Counts the matches of a file by content without a search cache, opening the file once and recognizing an
+     * archive from the first chunk read.
+     *
+     * @param file  the file to scan
+     * @param attrs the file attributes
+     * @return the number of matches
+     */
+    private int countMatchesByContentOnce(Path file, BasicFileAttributes attrs) {
+        ContentDigest previousDigest = this.currentDigest.get();
+        ContentDigest contentDigest = new ContentDigest();
+        PooledTextScanner.Scan scan;
+        this.currentDigest.set(contentDigest);
+        try {
+            scan = scanFile(file);
+        } finally {
+            this.currentDigest.set(previousDigest);
+        }
+        if (scan == PooledTextScanner.Scan.ARCHIVE) {
+            return countArchiveMatchesByContent(file, attrs);
+        }
+        int matches = scan == PooledTextScanner.Scan.FOUND ? 1 : 0;
+
+        byte[] digest = contentDigest.digest();
+        if (digest != null) {
+            rememberContent(attrs.size(), digest, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Counts the matches of an archive, unpacking it only if no identical copy was unpacked before.
+     *
+     * @param file  the archive
+     * @param attrs the file attributes
+     * @return the number of matches
+     */
+    private int countArchiveMatchesByContent(Path file, BasicFileAttributes attrs) {
+        byte[] digest = digest(file);
+        Integer knownMatches = digest == null ? null : knownContent(attrs.size(), digest);
+        if (knownMatches != null) {
+            return knownMatches;
+        }
+        int matches = processCompressedFile(file).size();
+        if (digest != null) {
+            rememberContent(attrs.size(), digest, matches);
+        }
+        return matches;
+    }
+
+    private Integer knownContent(long size, byte[] digest) {
+        synchronized (this.contentsBySize) {
+            List<ScannedContent> sameSize = this.contentsBySize.get(size);
+            if (sameSize != null) {
+                for (ScannedContent scanned : sameSize) {
+                    if (Arrays.equals(digest, scanned.digest())) {
+                        return scanned.matches();
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private void rememberContent(long size, byte[] digest, int matches) {
+        synchronized (this.contentsBySize) {
+            List<ScannedContent> sameSize = this.contentsBySize.computeIfAbsent(size, key -> new ArrayList<>());
+            for (ScannedContent scanned : sameSize) {
+                if (Arrays.equals(digest, scanned.digest())) {
+                    return;
+                }
+            }
+            if (sameSize.size() == MAX_CONTENTS_PER_SIZE) {
+                sameSize.remove(0);
+            }
+            sameSize.add(new ScannedContent(digest, matches));
+        }
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Computes the SHA-256 digest of a file.
+     *
+     * @param file the file
+     * @return the digest, or null if the file cannot be read
+     */
+    private static byte[] digest(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+            return messageDigest.digest();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a file is an archive, consulting the search cache when one is set.
+     *
+     * @param file  the file to check
+     * @param attrs the file attributes
+     * @return true if the file is an archive, false otherwise
+     */
+    private boolean isArchive(Path file, BasicFileAttributes attrs) {
+        if (this.searchCache == null) {
+            return isFileArchive(file.toFile());
+        }
+        return this.searchCache.isArchive(file, attrs, f -> isFileArchive(f.toFile()));
+    }
+
+    /**
+     * Checks if a file contains the specified text, consulting the search cache when one is set.
+     *
+     * @param file  the file to check
+     * @param attrs the file attributes
+     * @return true if the file contains the text, false otherwise
+     */
+    private boolean containsText(Path file, BasicFileAttributes attrs) {
+        if (this.searchCache == null) {
+            return containsTextInFile(file);
+        }
+        return this.searchCache.containsText(file, attrs, this.textToSearch, this::containsTextInFile);
+    }
+
     /**
      * Handles a compressed file by checking for matches within the file and processing any directories within it.
      *
      * @param compressedFilePath the path of the compressed file
      */
-    private List<Path> processCompressedFile(Path compressedFilePath) {
+    List<Path> processCompressedFile(Path compressedFilePath) {
         List<Path> processedFiles = new ArrayList<>();
 
         processedFiles.addAll(processCompressedFileForMatch(compressedFilePath));
@@ -126,9 +623,9 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
      * @return true if the file contains the text, false otherwise
      */
     private boolean containsTextInFile(Path file) {
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file.toFile()))) {
-            return bufferedReader.lines().anyMatch(line -> line.contains(this.textToSearch));
-        } catch (FileNotFoundException e) {
+        try {
+            return this.textScanner.containsText(file, this.currentFeed.get(), this.currentDigest.get());
+        } catch (NoSuchFileException | AccessDeniedException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
             e.printStackTrace();
@@ -137,6 +634,23 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
     }
 
 
+    /**
+     * Scans a file that may be an archive. A file that no longer exists or cannot be read does not match.
+     *
+     * @param file the file to scan
+     * @return the outcome of the scan
+     */
+    private PooledTextScanner.Scan scanFile(Path file) {
+        try {
+            return this.textScanner.scan(file, this.currentFeed.get(), this.currentDigest.get());
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            return PooledTextScanner.Scan.NOT_FOUND;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return PooledTextScanner.Scan.NOT_FOUND;
+    }
+
     /**
      * Checks if a zipped file contains the specified text.
      *
@@ -146,15 +660,8 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
      */
     private boolean containsTextInZippedFile(ZipFile zipFile, ZipEntry entry) {
         boolean flag = false;
-        try (InputStream inputStream = zipFile.getInputStream(entry);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains(textToSearch)) {
-                    flag = true;
-                    break;
-                }
-            }
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+            flag = this.textScanner.containsText(inputStream, this.currentFeed.get());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -185,9 +692,7 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
      */
     private boolean isFileValid(Path path) {
 
-        File file = path.toFile();
-
-        return file.canRead() && file.exists();
+        return Files.isReadable(path);
     }
 
     /**
@@ -196,38 +701,72 @@ public class FileTextRecognitionVisitor extends SimpleFileVisitor<Path> {
      * @param file the file
      * @return true if the file is an archive, false otherwise
      */
-    private static boolean isFileArchive(File file) {
+    static boolean isFileArchive(File file) {
 
-        if (file.length() < 4) {
+        if (file.length() < ARCHIVE_SIGNATURE_LENGTH) {
             // File is too small to contain a signature
             return false;
         }
 
-        byte[] fileSignature = new byte[4];
+        byte[] fileSignature = new byte[ARCHIVE_SIGNATURE_LENGTH];
         try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
             raf.read(fileSignature);
         } catch (IOException e) {
             e.printStackTrace();
         }
 
+        return hasArchiveSignature(ByteBuffer.wrap(fileSignature).position(ARCHIVE_SIGNATURE_LENGTH));
+    }
 
+    /**
+     * Checks if the bytes read into a buffer start with an archive signature. Only the first
+     * {@link #ARCHIVE_SIGNATURE_LENGTH} bytes are compared, so only the signatures of that length can match.
+     *
+     * @param buffer the buffer in write mode, holding the first bytes of a file from index 0 to its position
+     * @return true if the bytes start with an archive signature, false otherwise
+     */
+    static boolean hasArchiveSignature(ByteBuffer buffer) {
+        if (buffer.position() < ARCHIVE_SIGNATURE_LENGTH) {
+            return false;
+        }
         for (byte[] signature : ARCHIVE_SIGNATURE) {
-            if (Arrays.equals(fileSignature, signature)) {
+            if (signature.length == ARCHIVE_SIGNATURE_LENGTH && startsWith(buffer, signature)) {
                 return true;
             }
         }
         return false;
     }
 
+    private static boolean startsWith(ByteBuffer buffer, byte[] signature) {
+        for (int i = 0; i < signature.length; i++) {
+            if (buffer.get(i) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
-     * Retrieves the list of files that contain the specified text. The list is sorted based on the file size.
+     * Retrieves the list of files that contain the specified text. The list is sorted based on the file size
+     * recorded when the file was visited, and files of equal size keep the order in which they were visited. Paths
+     * are rebuilt from the compact store on access. The list can be sorted, and entries replaced or removed, like
+     * any mutable list; only inserting in the middle is unsupported.
      *
      * @return the list of files that contain the text
      */
     public List<Path> getFileContainsText() {
 
-        this.fileContainsText.sort(Comparator.comparingLong(this::getFileSize));
+        this.fileContainsText.sortByKey();
 
         return fileContainsText;
     }
-}
+
+    /**
+     * The digest of a scanned content and its number of matches.
+     *
+     * @param digest  the SHA-256 digest of the content
+     * @param matches the number of matches
+     */
+    private record ScannedContent(byte[] digest, int matches) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+package org.example.visitor;
+
+import org.example.finder.SearchQuery;
+import org.example.store.CompactPathStore;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+
+/**
+ * The MultiQueryVisitor class is a visitor implementation that answers several independent queries in a single
+ * traversal. Each file is read once with the pooled buffers of {@link PooledTextScanner}, and every chunk is
+ * checked against all queries that are still looking for a match in that file. A query is retired as soon as it
+ * has reached its own limit, and the walk terminates once every query is retired.
+ */
+public class MultiQueryVisitor extends SimpleFileVisitor<Path> {
+
+    /**
+     * The queries, in the order they were given.
+     */
+    private final List<SearchQuery> queries;
+    /**
+     * The file name matcher of every query, or null for queries that accept every file.
+     */
+    private final List<PathMatcher> fileNameMatchers;
+    /**
+     * The scanner of every query.
+     */
+    private final List<PooledTextScanner> textScanners;
+    /**
+     * The files that matched each query, keyed by file size.
+     */
+    private final List<CompactPathStore> results;
+    /**
+     * The indexes of the queries that have not reached their limit yet.
+     */
+    private final List<Integer> activeQueries;
+
+    /**
+     * Constructs a new MultiQueryVisitor for the specified queries.
+     *
+     * @param queries the queries to answer
+     */
+    public MultiQueryVisitor(List<SearchQuery> queries) {
+        this.queries = List.copyOf(queries);
+        this.fileNameMatchers = new ArrayList<>();
+        this.textScanners = new ArrayList<>();
+        this.results = new ArrayList<>();
+        this.activeQueries = new ArrayList<>();
+
+        for (int i = 0; i < this.queries.size(); i++) {
+            this.fileNameMatchers.add(this.queries.get(i).fileNameMatcher());
+            this.textScanners.add(new PooledTextScanner(this.queries.get(i).textToSearch()));
+            this.results.add(new CompactPathStore());
+            this.activeQueries.add(i);
+        }
+    }
+
+    /**
+     * Visits a file and checks it against every active query whose file name filter accepts it. The file is read
+     * at most once.
+     *
+     * @param file  the file to visit
+     * @param attrs the file attributes
+     * @return the visit result, {@link FileVisitResult#TERMINATE} once every query is retired
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+
+        if (Files.isRegularFile(file)) {
+
+            List<Integer> candidates = candidatesFor(file);
+
+            if (!candidates.isEmpty()) {
+                if (FileTextRecognitionVisitor.isFileArchive(file.toFile())) {
+                    processCompressedFile(file, candidates);
+                } else if (Files.isReadable(file)) {
+                    matchFile(file, attrs.size(), candidates);
+                }
+            }
+        }
+
+        return this.activeQueries.isEmpty() ? FileVisitResult.TERMINATE : super.visitFile(file, attrs);
+    }
+
+    /**
+     * Selects the active queries whose file name filter accepts the file.
+     *
+     * @param file the file
+     * @return the indexes of the accepting queries
+     */
+    private List<Integer> candidatesFor(Path file) {
+        List<Integer> candidates = new ArrayList<>();
+        Path fileName = file.getFileName();
+
+        for (int query : this.activeQueries) {
+            PathMatcher matcher = this.fileNameMatchers.get(query);
+            if (matcher == null || (fileName != null && matcher.matches(fileName))) {
+                candidates.add(query);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Reads a file once and records it for every candidate query it matches.
+     *
+     * @param file       the file to read
+     * @param size       the file size used for sorting
+     * @param candidates the indexes of the queries to check
+     */
+    private void matchFile(Path file, long size, List<Integer> candidates) {
+        try {
+            addResults(scan(file, scannersOf(candidates)), candidates, file, size);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks every file inside a ZIP archive against the candidate queries. As with a single search, the archive
+     * is recorded once for every entry that matches.
+     *
+     * @param compressedFilePath the path of the compressed file
+     * @param candidates         the indexes of the queries to check
+     */
+    private void processCompressedFile(Path compressedFilePath, List<Integer> candidates) {
+        long size = compressedFilePath.toFile().length();
+        List<PooledTextScanner> scanners = scannersOf(candidates);
+
+        try (ZipFile zipFile = new ZipFile(compressedFilePath.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    addResults(PooledTextScanner.containsTexts(inputStream, scanners), candidates, compressedFilePath,
+                            size);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads a file once and checks it for the texts of several scanners.
+     *
+     * @param file     the file to read
+     * @param scanners the scanners of the texts
+     * @return the indexes of the scanners whose text the file contains
+     * @throws IOException if the file cannot be read
+     */
+    BitSet scan(Path file, List<PooledTextScanner> scanners) throws IOException {
+        return PooledTextScanner.containsTexts(file, scanners);
+    }
+
+    private List<PooledTextScanner> scannersOf(List<Integer> candidates) {
+        List<PooledTextScanner> scanners = new ArrayList<>(candidates.size());
+        for (int query : candidates) {
+            scanners.add(this.textScanners.get(query));
+        }
+        return scanners;
+    }
+
+    private void addResults(BitSet matched, List<Integer> candidates, Path file, long size) {
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            addResult(candidates.get(i), file, size);
+        }
+    }
+
+    /**
+     * Records a match for a query and retires the query once it has reached its limit.
+     *
+     * @param query the index of the query
+     * @param file  the matching file
+     * @param size  the file size used for sorting
+     */
+    private void addResult(int query, Path file, long size) {
+        CompactPathStore result = this.results.get(query);
+        if (result.size() >= this.queries.get(query).limit()) {
+            return;
+        }
+        result.add(file, size);
+        if (result.size() >= this.queries.get(query).limit()) {
+            this.activeQueries.remove(Integer.valueOf(query));
+        }
+    }
+
+    /**
+     * Retrieves the files that matched each query, one list per query in the order the queries were given. Each
+     * list is sorted based on the file size.
+     *
+     * @return one list of matching files per query
+     */
+    public List<List<Path>> getResults() {
+
+        List<List<Path>> sortedResults = new ArrayList<>();
+        for (CompactPathStore result : this.results) {
+            result.sortByKey();
+            sortedResults.add(result);
+        }
+        return sortedResults;
+    }
+}
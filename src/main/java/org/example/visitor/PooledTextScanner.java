@@ -0,0 +1,410 @@
+package org.example.visitor;
+
+import org.example.scheduler.ReadCounter;
+import org.example.summary.BloomSummaryStore.TrigramFeed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The PooledTextScanner class checks whether content contains a text without decoding it. The text is encoded once
+ * with the default charset, the same charset the readers used before, and searched for in the raw bytes. Files are
+ * read through a {@link FileChannel} into a direct buffer and streams into a heap buffer; both buffers are kept per
+ * thread and reused, so scanning allocates next to nothing once a thread has warmed up. The last bytes of every
+ * chunk are carried over, so matches across chunk boundaries are found. When a directory summary is being built,
+ * or identical copies are being looked for, the content is also handed to a {@link TrigramFeed} or a
+ * {@link ContentDigest} and read to the end.
+ * <p>
+ * The bytes read from files are reported to {@link ReadCounter}. {@link #scan} also recognizes an archive by the
+ * signature at the start of its first chunk, so a file is opened only once whether it turns out to be an archive or
+ * not.
+ * <p>
+ * A null or empty text, or one that contains a line terminator, is never found, as with line-by-line reading.
+ * Several scanners can share one read of the same content through {@link #containsTexts(Path, List)}.
+ */
+final class PooledTextScanner {
+
+    /**
+     * The size of the pooled buffers.
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Set<OpenOption> READ = Set.of(StandardOpenOption.READ);
+
+    private static final ThreadLocal<ByteBuffer> DIRECT_BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private static final ThreadLocal<ByteBuffer> HEAP_BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    /**
+     * The outcome of {@link #scan}.
+     */
+    enum Scan {
+
+        /**
+         * The file contains the text.
+         */
+        FOUND,
+
+        /**
+         * The file does not contain the text.
+         */
+        NOT_FOUND,
+
+        /**
+         * The file starts with an archive signature and was not scanned any further.
+         */
+        ARCHIVE
+    }
+
+    /**
+     * The encoded text to search for.
+     */
+    private final byte[] needle;
+    /**
+     * Whether the text can be found at all.
+     */
+    private final boolean searchable;
+
+    /**
+     * Constructs a new PooledTextScanner for the specified text.
+     *
+     * @param textToSearch the text to search for
+     */
+    PooledTextScanner(String textToSearch) {
+        this.needle = textToSearch == null ? new byte[0] : textToSearch.getBytes(Charset.defaultCharset());
+        this.searchable = this.needle.length > 0
+                && textToSearch.indexOf('\n') < 0
+                && textToSearch.indexOf('\r') < 0;
+    }
+
+    /**
+     * Checks if a file contains the text.
+     *
+     * @param file the file to check
+     * @return true if the file contains the text, false otherwise
+     * @throws IOException if the file cannot be read
+     */
+    boolean containsText(Path file) throws IOException {
+        return containsText(file, null);
+    }
+
+    /**
+     * Checks if a file contains the text. With a feed, the file is read to the end even after a match and every
+     * chunk is handed to the feed.
+     *
+     * @param file the file to check
+     * @param feed the feed that receives the content, or null to stop at the first match
+     * @return true if the file contains the text, false otherwise
+     * @throws IOException if the file cannot be read
+     */
+    boolean containsText(Path file, TrigramFeed feed) throws IOException {
+        return containsText(file, feed, null);
+    }
+
+    /**
+     * Checks if a file contains the text. With a feed or a digest, the file is read to the end even after a match
+     * and every chunk is handed to them.
+     *
+     * @param file   the file to check
+     * @param feed   the feed that receives the content, or null
+     * @param digest the digest that receives the content, or null
+     * @return true if the file contains the text, false otherwise
+     * @throws IOException if the file cannot be read
+     */
+    boolean containsText(Path file, TrigramFeed feed, ContentDigest digest) throws IOException {
+        return scan(file, feed, digest, false) == Scan.FOUND;
+    }
+
+    /**
+     * Checks if a file is an archive and, if it is not, whether it contains the text. The archive signature is
+     * checked in the first chunk read, before it is handed to the feed or the digest, so an archive is left
+     * unscanned. With a feed or a digest, any other file is read to the end even after a match.
+     *
+     * @param file   the file to check
+     * @param feed   the feed that receives the content, or null
+     * @param digest the digest that receives the content, or null
+     * @return the outcome of the scan
+     * @throws IOException if the file cannot be read
+     */
+    Scan scan(Path file, TrigramFeed feed, ContentDigest digest) throws IOException {
+        return scan(file, feed, digest, true);
+    }
+
+    private Scan scan(Path file, TrigramFeed feed, ContentDigest digest, boolean detectArchive) throws IOException {
+        boolean readToEnd = feed != null || digest != null;
+        if (!this.searchable && !readToEnd && !detectArchive) {
+            return Scan.NOT_FOUND;
+        }
+        ByteBuffer buffer = buffer(DIRECT_BUFFERS);
+        buffer.clear();
+
+        boolean found = false;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            int start = buffer.position();
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                ReadCounter.add(read);
+                if (detectArchive) {
+                    detectArchive = false;
+                    if (FileTextRecognitionVisitor.hasArchiveSignature(buffer)) {
+                        return Scan.ARCHIVE;
+                    }
+                    if (!this.searchable && !readToEnd) {
+                        return Scan.NOT_FOUND;
+                    }
+                }
+                if (feed != null) {
+                    feed.add(buffer, start, buffer.position());
+                }
+                if (digest != null) {
+                    digest.add(buffer, start, buffer.position());
+                }
+                if (found || !this.searchable) {
+                    buffer.clear();
+                } else if (matchAndCarryOver(buffer)) {
+                    if (!readToEnd) {
+                        return Scan.FOUND;
+                    }
+                    found = true;
+                    buffer.clear();
+                }
+                start = buffer.position();
+            }
+        }
+        if (feed != null) {
+            feed.complete();
+        }
+        if (digest != null) {
+            digest.complete();
+        }
+        return found ? Scan.FOUND : Scan.NOT_FOUND;
+    }
+
+    /**
+     * Checks if a stream contains the text. The stream is not closed.
+     *
+     * @param inputStream the stream to check
+     * @return true if the stream contains the text, false otherwise
+     * @throws IOException if the stream cannot be read
+     */
+    boolean containsText(InputStream inputStream) throws IOException {
+        return containsText(inputStream, null);
+    }
+
+    /**
+     * Checks if a stream contains the text. The stream is not closed. With a feed, the stream is read to the end
+     * even after a match and every chunk is handed to the feed.
+     *
+     * @param inputStream the stream to check
+     * @param feed        the feed that receives the content, or null to stop at the first match
+     * @return true if the stream contains the text, false otherwise
+     * @throws IOException if the stream cannot be read
+     */
+    boolean containsText(InputStream inputStream, TrigramFeed feed) throws IOException {
+        if (!this.searchable && feed == null) {
+            return false;
+        }
+        ByteBuffer buffer = buffer(HEAP_BUFFERS);
+        buffer.clear();
+
+        boolean found = false;
+        byte[] array = buffer.array();
+        int read;
+        while ((read = inputStream.read(array, buffer.arrayOffset() + buffer.position(), buffer.remaining())) >= 0) {
+            int start = buffer.position();
+            buffer.position(start + read);
+            if (feed != null) {
+                feed.add(buffer, start, buffer.position());
+            }
+            if (found || !this.searchable) {
+                buffer.clear();
+            } else if (matchAndCarryOver(buffer)) {
+                if (feed == null) {
+                    return true;
+                }
+                found = true;
+                buffer.clear();
+            }
+        }
+        if (feed != null) {
+            feed.complete();
+        }
+        return found;
+    }
+
+    /**
+     * Checks which of the texts of several scanners a file contains, reading the file once and stopping as soon as
+     * every text was found.
+     *
+     * @param file     the file to check
+     * @param scanners the scanners of the texts
+     * @return the indexes of the scanners whose text the file contains
+     * @throws IOException if the file cannot be read
+     */
+    static BitSet containsTexts(Path file, List<PooledTextScanner> scanners) throws IOException {
+        BitSet pending = searchable(scanners);
+        BitSet found = new BitSet(scanners.size());
+        if (pending.isEmpty()) {
+            return found;
+        }
+        int longest = longest(scanners, pending);
+        ByteBuffer buffer = buffer(DIRECT_BUFFERS, longest);
+        buffer.clear();
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                ReadCounter.add(read);
+                if (matchAllAndCarryOver(buffer, scanners, pending, found, longest)) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks which of the texts of several scanners a stream contains, reading the stream once and stopping as soon
+     * as every text was found. The stream is not closed.
+     *
+     * @param inputStream the stream to check
+     * @param scanners    the scanners of the texts
+     * @return the indexes of the scanners whose text the stream contains
+     * @throws IOException if the stream cannot be read
+     */
+    static BitSet containsTexts(InputStream inputStream, List<PooledTextScanner> scanners) throws IOException {
+        BitSet pending = searchable(scanners);
+        BitSet found = new BitSet(scanners.size());
+        if (pending.isEmpty()) {
+            return found;
+        }
+        int longest = longest(scanners, pending);
+        ByteBuffer buffer = buffer(HEAP_BUFFERS, longest);
+        buffer.clear();
+
+        byte[] array = buffer.array();
+        int read;
+        while ((read = inputStream.read(array, buffer.arrayOffset() + buffer.position(), buffer.remaining())) >= 0) {
+            buffer.position(buffer.position() + read);
+            if (matchAllAndCarryOver(buffer, scanners, pending, found, longest)) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private static BitSet searchable(List<PooledTextScanner> scanners) {
+        BitSet searchable = new BitSet(scanners.size());
+        for (int i = 0; i < scanners.size(); i++) {
+            searchable.set(i, scanners.get(i).searchable);
+        }
+        return searchable;
+    }
+
+    private static int longest(List<PooledTextScanner> scanners, BitSet pending) {
+        int longest = 0;
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+            longest = Math.max(longest, scanners.get(i).needle.length);
+        }
+        return longest;
+    }
+
+    /**
+     * Searches the filled part of the buffer for every pending text and keeps the bytes that may start a match of
+     * the longest text spanning into the next chunk. Bytes carried over are searched again, which is harmless
+     * because a text is only ever reported once.
+     *
+     * @param buffer   the buffer in write mode
+     * @param scanners the scanners of the texts
+     * @param pending  the indexes of the texts not found yet, updated in place
+     * @param found    the indexes of the texts found so far, updated in place
+     * @param longest  the length of the longest text
+     * @return true if every text was found, false otherwise
+     */
+    private static boolean matchAllAndCarryOver(ByteBuffer buffer, List<PooledTextScanner> scanners, BitSet pending,
+                                                BitSet found, int longest) {
+        buffer.flip();
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+            if (scanners.get(i).indexOf(buffer) >= 0) {
+                pending.clear(i);
+                found.set(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return true;
+        }
+        int carryOver = Math.min(buffer.limit(), longest - 1);
+        buffer.position(buffer.limit() - carryOver);
+        buffer.compact();
+        return false;
+    }
+
+    /**
+     * Retrieves the pooled buffer of the current thread, or a dedicated one when the text does not fit in half of
+     * a pooled buffer.
+     */
+    private ByteBuffer buffer(ThreadLocal<ByteBuffer> pool) {
+        return buffer(pool, this.needle.length);
+    }
+
+    private static ByteBuffer buffer(ThreadLocal<ByteBuffer> pool, int needleLength) {
+        if (needleLength > BUFFER_SIZE / 2) {
+            return ByteBuffer.allocate(2 * needleLength);
+        }
+        return pool.get();
+    }
+
+    /**
+     * Searches the filled part of the buffer and keeps the bytes that may start a match spanning into the next
+     * chunk. The buffer is left ready for the next read.
+     *
+     * @param buffer the buffer in write mode
+     * @return true if the text was found, false otherwise
+     */
+    private boolean matchAndCarryOver(ByteBuffer buffer) {
+        buffer.flip();
+        if (indexOf(buffer) >= 0) {
+            return true;
+        }
+        int carryOver = Math.min(buffer.limit(), this.needle.length - 1);
+        buffer.position(buffer.limit() - carryOver);
+        buffer.compact();
+        return false;
+    }
+
+    /**
+     * Finds the text between the position and the limit of the buffer.
+     *
+     * @param buffer the buffer in read mode
+     * @return the index of the first match, or -1 if there is none
+     */
+    private int indexOf(ByteBuffer buffer) {
+        byte first = this.needle[0];
+        int last = buffer.limit() - this.needle.length;
+
+        for (int i = buffer.position(); i <= last; i++) {
+            if (buffer.get(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < this.needle.length && buffer.get(i + j) == this.needle[j]) {
+                j++;
+            }
+            if (j == this.needle.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
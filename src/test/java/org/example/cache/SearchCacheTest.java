@@ -0,0 +1,134 @@
+package org.example.cache;
+
+import org.example.finder.TextFinder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheTest {
+
+    private static final String PATH = "src/test/resources";
+
+    Path tempDir;
+    Path tempFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory(Path.of(PATH), "test");
+        tempFile = Files.createTempFile(tempDir, "testfile", ".txt");
+        Files.write(tempFile, "This is a sample file for testing. Lorem ipsum".getBytes());
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void testContainsTextReusesResultForUnchangedFile() throws IOException {
+        SearchCache searchCache = new SearchCache();
+        AtomicInteger reads = new AtomicInteger();
+        BasicFileAttributes attrs = Files.readAttributes(tempFile, BasicFileAttributes.class);
+
+        assertTrue(searchCache.containsText(tempFile, attrs, "Lorem", f -> reads.incrementAndGet() > 0));
+        assertTrue(searchCache.containsText(tempFile, attrs, "Lorem", f -> reads.incrementAndGet() > 0));
+
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void testContainsTextReevaluatesModifiedFile() throws IOException {
+        SearchCache searchCache = new SearchCache();
+        AtomicInteger reads = new AtomicInteger();
+
+        searchCache.containsText(tempFile, Files.readAttributes(tempFile, BasicFileAttributes.class), "demo",
+                f -> reads.incrementAndGet() < 0);
+        Files.write(tempFile, "demo".getBytes());
+        Files.setLastModifiedTime(tempFile, FileTime.fromMillis(0));
+        boolean result = searchCache.containsText(tempFile, Files.readAttributes(tempFile, BasicFileAttributes.class),
+                "demo", f -> reads.incrementAndGet() > 0);
+
+        assertTrue(result);
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void testFindTextWithCacheSeesNewFiles() throws IOException {
+        SearchCache searchCache = new SearchCache();
+
+        assertTrue(TextFinder.findText("demo", tempDir.toString(), searchCache).isEmpty());
+
+        Path newFile = Files.createTempFile(tempDir, "testfile", ".txt");
+        Files.write(newFile, "demo".getBytes());
+        Files.setLastModifiedTime(tempDir, FileTime.fromMillis(0));
+
+        List<Path> listFiles = TextFinder.findText("demo", tempDir.toString(), searchCache);
+        assertTrue(listFiles.contains(newFile));
+    }
+
+    @Test
+    void testFindTextWithCacheMatchesUncachedSearch() {
+        SearchCache searchCache = new SearchCache();
+
+        assertEquals(TextFinder.findText("testing", tempDir.toString()),
+                TextFinder.findText("testing", tempDir.toString(), searchCache));
+        assertEquals(TextFinder.findText("testing", tempDir.toString()),
+                TextFinder.findText("testing", tempDir.toString(), searchCache));
+    }
+
+    @Test
+    void testContainsTextKeepsOnlyRecentTextsPerFile() throws IOException {
+        SearchCache searchCache = new SearchCache(10, 2);
+        AtomicInteger reads = new AtomicInteger();
+        BasicFileAttributes attrs = Files.readAttributes(tempFile, BasicFileAttributes.class);
+
+        for (String text : List.of("Lorem", "ipsum", "sample", "Lorem")) {
+            searchCache.containsText(tempFile, attrs, text, f -> reads.incrementAndGet() > 0);
+        }
+        assertEquals(4, reads.get());
+
+        searchCache.containsText(tempFile, attrs, "Lorem", f -> reads.incrementAndGet() > 0);
+        assertEquals(4, reads.get());
+    }
+
+    @Test
+    void testContainsTextEvictsFilesBeyondCapacity() throws IOException {
+        SearchCache searchCache = new SearchCache(1);
+        AtomicInteger reads = new AtomicInteger();
+        Path otherFile = Files.createTempFile(tempDir, "testfile", ".txt");
+
+        searchCache.containsText(tempFile, Files.readAttributes(tempFile, BasicFileAttributes.class), "demo",
+                f -> reads.incrementAndGet() < 0);
+        searchCache.containsText(otherFile, Files.readAttributes(otherFile, BasicFileAttributes.class), "demo",
+                f -> reads.incrementAndGet() < 0);
+        searchCache.containsText(tempFile, Files.readAttributes(tempFile, BasicFileAttributes.class), "demo",
+                f -> reads.incrementAndGet() < 0);
+
+        assertEquals(3, reads.get());
+    }
+
+    @Test
+    void testConstructorWithInvalidCapacityMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new SearchCache(10, 0));
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.finder;
+
+import org.example.cache.SearchCache;
+import org.example.summary.BloomSummaryStore;
+import org.example.visitor.Deduplication;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchOptionsTest {
+
+    @Test
+    void testDefaultOptionsTurnEverythingOff() {
+        SearchOptions options = SearchOptions.builder().build();
+
+        assertNull(options.getSearchCache());
+        assertEquals(Deduplication.NONE, options.getDeduplication());
+        assertNull(options.getIoScheduler());
+        assertNull(options.getSummaryStore());
+        assertEquals(BloomSummaryStore.Access.READ_WRITE, options.getSummaryAccess());
+    }
+
+    @Test
+    void testBuilderKeepsEveryOption() {
+        SearchCache searchCache = new SearchCache();
+
+        SearchOptions options = SearchOptions.builder()
+                .searchCache(searchCache)
+                .deduplication(Deduplication.FILE_KEY)
+                .summaryAccess(BloomSummaryStore.Access.READ)
+                .build();
+
+        assertSame(searchCache, options.getSearchCache());
+        assertEquals(Deduplication.FILE_KEY, options.getDeduplication());
+        assertEquals(BloomSummaryStore.Access.READ, options.getSummaryAccess());
+    }
+
+    @Test
+    void testNullDeduplicationMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.builder().deduplication(null));
+    }
+
+    @Test
+    void testNullSummaryAccessMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.builder().summaryAccess(null));
+    }
+}
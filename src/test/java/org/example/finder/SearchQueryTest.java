@@ -0,0 +1,42 @@
+package org.example.finder;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchQueryTest {
+
+    @Test
+    void testParseTextOnly() {
+        SearchQuery query = SearchQuery.parse("Lorem ipsum");
+
+        assertEquals(new SearchQuery("Lorem ipsum"), query);
+        assertNull(query.fileNameMatcher());
+    }
+
+    @Test
+    void testParseAllFields() {
+        SearchQuery query = SearchQuery.parse("demo\t*.txt\t5");
+
+        assertEquals(new SearchQuery("demo", "*.txt", 5), query);
+        assertTrue(query.fileNameMatcher().matches(Path.of("file2.txt")));
+        assertFalse(query.fileNameMatcher().matches(Path.of("file1.xml")));
+    }
+
+    @Test
+    void testParseEmptyGlobAcceptsEveryFile() {
+        assertNull(SearchQuery.parse("demo\t\t5").fileNameGlob());
+    }
+
+    @Test
+    void testEmptyTextMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.parse("\t*.txt"));
+    }
+
+    @Test
+    void testInvalidLimitMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchQuery("demo", null, 0));
+    }
+}
@@ -1,5 +1,8 @@
 package org.example.finder;
 
+import org.example.scheduler.IoScheduler;
+import org.example.scheduler.ReadOrder;
+import org.example.visitor.Deduplication;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +16,7 @@ import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -60,6 +64,17 @@ class TextFinderTest {
         assertThrows(IllegalArgumentException.class, () -> TextFinder.findText("", PATH));
     }
 
+    @Test
+    void testFindTextResultCanBeSortedAndFiltered() {
+        List<Path> listFiles = TextFinder.findText("e", tempDir.toString());
+
+        listFiles.sort(Comparator.comparing(Path::toString).reversed());
+        assertEquals(List.of(tempFile2, tempFile1), listFiles);
+
+        listFiles.removeIf(tempFile1::equals);
+        assertEquals(List.of(tempFile2), listFiles);
+    }
+
     @Test
     void testConstructorInitializeMustTrow() {
         assertThrows(IllegalStateException.class, () -> {
@@ -97,4 +112,63 @@ class TextFinderTest {
         assertThrows(IllegalArgumentException.class, () -> TextFinder.findText("", tempDir.toString()));
     }
 
+    @Test
+    void testFindTextBatchReturnsResultPerQuery() {
+        List<List<Path>> results = TextFinder.findTextBatch(
+                List.of(new SearchQuery("demo"), new SearchQuery("testing")), tempDir.toString());
+
+        assertEquals(List.of(tempFile2), results.get(0));
+        assertEquals(List.of(tempFile1), results.get(1));
+    }
+
+    @Test
+    void testFindTextBatchWithNoQueriesMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> TextFinder.findTextBatch(List.of(), tempDir.toString()));
+    }
+
+    @Test
+    void testFindTextWithIoSchedulerMatchesUnscheduledSearch() {
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.INODE, 1, 4)) {
+            List<Path> listFiles = TextFinder.findText("demo", tempDir.toString(),
+                    SearchOptions.builder().ioScheduler(ioScheduler).build());
+
+            assertEquals(TextFinder.findText("demo", tempDir.toString()), listFiles);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testFindTextWithIoSchedulerOverloadMatchesOptions() {
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.INODE, 1, 4)) {
+            List<Path> listFiles = TextFinder.findText("demo", tempDir.toString(), null, Deduplication.NONE,
+                    ioScheduler);
+
+            assertEquals(TextFinder.findText("demo", tempDir.toString(),
+                    SearchOptions.builder().ioScheduler(ioScheduler).build()), listFiles);
+        }
+    }
+
+    @Test
+    void testFindTextWithDeduplicationMatchesPlainSearch() {
+        List<Path> listFiles = TextFinder.findText("Lorem", tempDir.toString(),
+                SearchOptions.builder().deduplication(Deduplication.CONTENT).build());
+
+        assertEquals(TextFinder.findText("Lorem", tempDir.toString()), listFiles);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testFindTextWithDeduplicationOverloadMatchesOptions() {
+        List<Path> listFiles = TextFinder.findText("Lorem", tempDir.toString(), null, Deduplication.CONTENT);
+
+        assertEquals(TextFinder.findText("Lorem", tempDir.toString(),
+                SearchOptions.builder().deduplication(Deduplication.CONTENT).build()), listFiles);
+    }
+
+    @Test
+    void testFindTextWithoutOptionsMustTrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TextFinder.findText("demo", tempDir.toString(), (SearchOptions) null));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package org.example.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyTest {
+
+    private long now;
+
+    private void window(AdaptiveConcurrency concurrency, long bytes, long latencyNanos) {
+        now += 1_000_000;
+        for (int i = 0; i < AdaptiveConcurrency.WINDOW_READS; i++) {
+            concurrency.record(bytes, latencyNanos, now);
+        }
+    }
+
+    @Test
+    void testLimitGrowsWhileThroughputImproves() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 8);
+
+        window(concurrency, 1_000, 100);
+        window(concurrency, 2_000, 100);
+        window(concurrency, 3_000, 100);
+
+        assertEquals(5, concurrency.getLimit());
+    }
+
+    @Test
+    void testLimitBacksOffWhenThroughputDrops() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 8);
+
+        window(concurrency, 1_000, 100);
+        window(concurrency, 2_000, 100);
+        window(concurrency, 1_000, 100);
+
+        assertEquals(3, concurrency.getLimit());
+    }
+
+    @Test
+    void testLimitBacksOffWhenLatencyExplodes() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(4, 8);
+
+        window(concurrency, 1_000, 100);
+        window(concurrency, 2_000, 10_000);
+
+        assertEquals(4, concurrency.getLimit());
+    }
+
+    @Test
+    void testLimitStaysWithinBounds() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(10, 3);
+
+        assertEquals(3, concurrency.getLimit());
+
+        for (int i = 1; i <= 10; i++) {
+            window(concurrency, i * 1_000L, 100);
+        }
+        assertEquals(3, concurrency.getLimit());
+    }
+
+    @Test
+    void testLatencyBaselineDecays() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(4, 8);
+
+        window(concurrency, 1_000, 100);
+        for (int i = 0; i < 20; i++) {
+            window(concurrency, 1_000, 1_000);
+        }
+
+        assertTrue(concurrency.getLimit() >= 3, "Limit dropped to " + concurrency.getLimit());
+    }
+
+    @Test
+    void testTryAcquireFailsAtLimit() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 1);
+
+        assertTrue(concurrency.tryAcquire());
+        assertFalse(concurrency.tryAcquire());
+
+        concurrency.release();
+        assertTrue(concurrency.tryAcquire());
+    }
+}
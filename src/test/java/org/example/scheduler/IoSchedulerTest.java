@@ -0,0 +1,217 @@
+package org.example.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IoSchedulerTest {
+
+    private static final String PATH = "src/test/resources";
+
+    Path tempDir;
+    List<Path> files;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory(Path.of(PATH), "test");
+        files = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Path dir = Files.createDirectory(tempDir.resolve("dir" + i));
+            for (int j = 0; j < 20; j++) {
+                files.add(Files.write(dir.resolve("file" + j + ".txt"), ("demo " + j).getBytes()));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void testEveryFileIsVisitedOnce() throws IOException {
+        Set<Path> visited = Collections.synchronizedSet(new HashSet<>());
+        AtomicInteger visits = new AtomicInteger();
+
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.INODE, 2, 4)) {
+            ioScheduler.walkFileTree(tempDir, EnumSet.noneOf(FileVisitOption.class), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    visited.add(file);
+                    visits.incrementAndGet();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            assertEquals(new HashSet<>(files), visited);
+            assertEquals(files.size(), visits.get());
+            assertEquals(1, ioScheduler.getConcurrencyLimits().size());
+        }
+    }
+
+    @Test
+    void testReadsStartBeforeTheWalkEnds() throws IOException {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.WALK, 1, 2, 5, 10)) {
+            ioScheduler.walkFileTree(tempDir, EnumSet.noneOf(FileVisitOption.class), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    events.add("pre");
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    events.add("file");
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        assertEquals(files.size(), Collections.frequency(events, "file"));
+        assertTrue(events.indexOf("file") < events.lastIndexOf("pre"));
+    }
+
+    @Test
+    void testDirectoryIsLeftAfterAllItsFilesOnTheWalkingThread() throws IOException {
+        Thread walker = Thread.currentThread();
+        Set<Path> visited = Collections.synchronizedSet(new HashSet<>());
+        List<Path> left = new ArrayList<>();
+
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.INODE, 2, 4, 7, 14)) {
+            ioScheduler.walkFileTree(tempDir, EnumSet.noneOf(FileVisitOption.class), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    assertSame(walker, Thread.currentThread());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    visited.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    assertSame(walker, Thread.currentThread());
+                    for (Path file : files) {
+                        if (file.startsWith(dir)) {
+                            assertTrue(visited.contains(file), file + " was not visited before " + dir);
+                        }
+                    }
+                    left.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        assertEquals(4, left.size());
+        assertEquals(tempDir, left.get(3));
+    }
+
+    @Test
+    void testVisitorExceptionIsRethrown() {
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.WALK, 1, 1)) {
+            assertThrows(IOException.class, () -> ioScheduler.walkFileTree(tempDir,
+                    EnumSet.noneOf(FileVisitOption.class), new SimpleFileVisitor<>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                            throw new IOException("read failed");
+                        }
+                    }));
+        }
+    }
+
+    @Test
+    void testTerminateStopsRemainingReads() throws IOException {
+        AtomicInteger visits = new AtomicInteger();
+
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.DIRECTORY, 1, 1)) {
+            ioScheduler.walkFileTree(tempDir, EnumSet.noneOf(FileVisitOption.class), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    visits.incrementAndGet();
+                    return FileVisitResult.TERMINATE;
+                }
+            });
+        }
+
+        assertEquals(1, visits.get());
+    }
+
+    @Test
+    void testClosedSchedulerMustTrow() {
+        IoScheduler ioScheduler = new IoScheduler(ReadOrder.WALK, 1, 1);
+        ioScheduler.close();
+
+        assertThrows(IllegalStateException.class, () -> ioScheduler.walkFileTree(tempDir,
+                EnumSet.noneOf(FileVisitOption.class), new SimpleFileVisitor<>() {
+                }));
+    }
+
+    @Test
+    void testDirectoryOrderGroupsFilesByDirectory() throws IOException {
+        IoScheduler ioScheduler = new IoScheduler(ReadOrder.DIRECTORY, 1, 1);
+        ioScheduler.close();
+        List<IoScheduler.ScheduledRead> reads = new ArrayList<>();
+        for (int i = files.size() - 1; i >= 0; i--) {
+            reads.add(new IoScheduler.ScheduledRead(files.get(i),
+                    Files.readAttributes(files.get(i), BasicFileAttributes.class), Long.MAX_VALUE));
+        }
+
+        List<IoScheduler.ScheduledRead> ordered = ioScheduler.order(reads);
+
+        for (int i = 1; i < ordered.size(); i++) {
+            assertTrue(String.valueOf(ordered.get(i - 1).file().getParent())
+                    .compareTo(String.valueOf(ordered.get(i).file().getParent())) <= 0);
+        }
+    }
+
+    @Test
+    void testSmallFilesAreBatched() throws IOException {
+        List<IoScheduler.ScheduledRead> reads = new ArrayList<>();
+        for (Path file : files) {
+            reads.add(new IoScheduler.ScheduledRead(file, Files.readAttributes(file, BasicFileAttributes.class), 0));
+        }
+
+        List<List<IoScheduler.ScheduledRead>> batches = IoScheduler.batch(reads);
+
+        assertEquals(1, batches.size());
+        assertEquals(files.size(), batches.get(0).size());
+    }
+
+    @Test
+    void testInvalidConcurrencyMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> new IoScheduler(ReadOrder.WALK, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new IoScheduler(ReadOrder.WALK, 4, 2));
+        assertThrows(IllegalArgumentException.class, () -> new IoScheduler(ReadOrder.WALK, 1, 1, 10, 5));
+    }
+}
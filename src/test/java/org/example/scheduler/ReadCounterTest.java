@@ -0,0 +1,32 @@
+package org.example.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCounterTest {
+
+    @Test
+    void testReportedBytesAreTaken() {
+        ReadCounter.start();
+        ReadCounter.add(10);
+        ReadCounter.add(5);
+
+        assertEquals(15, ReadCounter.take(1_000));
+    }
+
+    @Test
+    void testVisitWithoutReportUsesFallback() {
+        ReadCounter.start();
+
+        assertEquals(1_000, ReadCounter.take(1_000));
+    }
+
+    @Test
+    void testEmptyReadIsNotReplacedByFallback() {
+        ReadCounter.start();
+        ReadCounter.add(0);
+
+        assertEquals(0, ReadCounter.take(1_000));
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchDaemonTest {
+
+    private static final String PATH = "src/test/resources";
+
+    Path tempDir;
+    Path tokenDir;
+    Path outsideDir;
+    Path tempFile1;
+    Path tempFile2;
+    SearchDaemon searchDaemon;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory(Path.of(PATH), "test");
+        tempFile1 = Files.createTempFile(tempDir, "testfile1", ".txt");
+        Files.write(tempFile1, "This is a sample file for testing. Lorem ipsum".getBytes());
+
+        tempFile2 = Files.createTempFile(tempDir, "testfile2", ".txt");
+        Files.write(tempFile2, "demo".getBytes());
+
+        tokenDir = Files.createTempDirectory(Path.of(PATH), "token");
+        outsideDir = Files.createTempDirectory(Path.of(PATH), "outside");
+        Files.write(outsideDir.resolve("secret.txt"), "demo".getBytes());
+
+        searchDaemon = new SearchDaemon(0, 2, tokenDir, List.of(tempDir));
+        searchDaemon.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchDaemon.close();
+        for (Path dir : List.of(tempDir, tokenDir, outsideDir)) {
+            try (Stream<Path> pathStream = Files.walk(dir)) {
+                pathStream
+                        .sorted(Comparator.reverseOrder())
+                        .map(Path::toFile)
+                        .forEach(File::delete);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Test
+    void testSearchReturnsMatchingFile() throws IOException {
+        List<String> lines = SearchClient.search(searchDaemon.getPort(), tokenDir, "demo", tempDir.toString());
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith(tempFile2.toString() + " "));
+    }
+
+    @Test
+    void testRepeatedSearchReturnsSameResult() throws IOException {
+        List<String> first = SearchClient.search(searchDaemon.getPort(), tokenDir, "Lorem ipsum", tempDir.toString());
+        List<String> second = SearchClient.search(searchDaemon.getPort(), tokenDir, "Lorem ipsum", tempDir.toString());
+
+        assertEquals(first, second);
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    void testSearchWithEmptyTextMustTrow() {
+        IOException exception = assertThrows(IOException.class,
+                () -> SearchClient.search(searchDaemon.getPort(), tokenDir, "", tempDir.toString()));
+
+        assertTrue(exception.getMessage().contains("status 400"));
+    }
+
+    @Test
+    void testSearchWithEmptyTextReturnsBadRequest() throws IOException {
+        assertEquals(400, statusOf("text=&path=" + URLEncoder.encode(tempDir.toString(), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testSearchWithoutPathReturnsBadRequest() throws IOException {
+        assertEquals(400, statusOf("text=demo"));
+    }
+
+    @Test
+    void testSearchInMissingDirectoryReturnsServerError() throws IOException {
+        Path missing = tempDir.resolve("missing");
+
+        assertEquals(500, statusOf("text=demo&path=" + URLEncoder.encode(missing.toString(), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testSearchWithoutTokenReturnsUnauthorized() throws IOException {
+        assertEquals(401, statusOf("text=demo&path=" + encode(tempDir), null));
+        assertEquals(401, statusOf("text=demo&path=" + encode(tempDir), "0".repeat(64)));
+    }
+
+    @Test
+    void testSearchOutsideRootsReturnsForbidden() throws IOException {
+        assertEquals(403, statusOf("text=demo&path=" + encode(outsideDir)));
+        assertEquals(403, statusOf("text=demo&path=" + encode(tempDir.resolve(".."))));
+    }
+
+    @Test
+    void testSymbolicLinkOutOfRootsReturnsForbidden() throws IOException {
+        Path link = Files.createSymbolicLink(tempDir.resolve("link"), outsideDir.toAbsolutePath());
+
+        assertEquals(403, statusOf("text=demo&path=" + encode(link)));
+    }
+
+    @Test
+    void testTokenFileIsOwnerOnly() throws IOException {
+        Path tokenFile = SearchDaemon.tokenFile(tokenDir, searchDaemon.getPort());
+
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(tokenFile));
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(tokenDir));
+    }
+
+    @Test
+    void testRootsMustExist() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchDaemon(0, 1, tokenDir, List.of(tempDir.resolve("missing"))));
+        assertThrows(IllegalArgumentException.class, () -> new SearchDaemon(0, 1, tokenDir, List.of()));
+    }
+
+    private static String encode(Path path) {
+        return URLEncoder.encode(path.toString(), StandardCharsets.UTF_8);
+    }
+
+    private int statusOf(String query) throws IOException {
+        Path tokenFile = SearchDaemon.tokenFile(tokenDir, searchDaemon.getPort());
+        return statusOf(query, Files.readString(tokenFile).trim());
+    }
+
+    private int statusOf(String query, String token) throws IOException {
+        URI uri = URI.create("http://127.0.0.1:" + searchDaemon.getPort() + SearchDaemon.SEARCH_PATH + "?" + query);
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
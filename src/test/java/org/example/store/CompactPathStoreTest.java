@@ -0,0 +1,197 @@
+package org.example.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactPathStoreTest {
+
+    @Test
+    void testAddAndGetReturnsSamePaths() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            store.add(Path.of("/data/a/file1.txt"));
+            store.add(Path.of("/data/b/file1.txt"));
+            store.add(Path.of("relative.txt"));
+
+            assertEquals(3, store.size());
+            assertEquals(Path.of("/data/a/file1.txt"), store.get(0));
+            assertEquals(Path.of("/data/b/file1.txt"), store.get(1));
+            assertEquals(Path.of("relative.txt"), store.get(2));
+        }
+    }
+
+    @Test
+    void testIterationMatchesInsertionOrder() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            List<Path> expected = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                Path path = Path.of("/data", "dir" + (i % 37), "file" + (i % 101) + ".txt");
+                expected.add(path);
+                store.add(path);
+            }
+
+            assertEquals(expected, new ArrayList<>(store));
+        }
+    }
+
+    @Test
+    void testSpillsToMappedFileWhenThresholdReached() {
+        try (CompactPathStore store = new CompactPathStore(0)) {
+            for (int i = 0; i < 20_000; i++) {
+                store.add(Path.of("/data", "dir" + (i % 13), "file" + i + ".xml"), i);
+            }
+
+            assertTrue(store.isSpilled());
+            assertEquals(Path.of("/data/dir0/file0.xml"), store.get(0));
+            assertEquals(Path.of("/data/dir5/file19999.xml"), store.get(19_999));
+        }
+    }
+
+    @Test
+    void testDoesNotSpillBelowThreshold() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            store.add(Path.of("/data/file.txt"));
+
+            assertFalse(store.isSpilled());
+        }
+    }
+
+    @Test
+    void testSortByKeyOrdersAscending() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            store.add(Path.of("/data/big.txt"), 300);
+            store.add(Path.of("/data/small.txt"), 1);
+            store.add(Path.of("/data/medium.txt"), 20);
+
+            store.sortByKey();
+
+            assertEquals(List.of(Path.of("/data/small.txt"), Path.of("/data/medium.txt"), Path.of("/data/big.txt")),
+                    store);
+            assertEquals(20, store.getKey(1));
+        }
+    }
+
+    @Test
+    void testSortByKeyKeepsInsertionOrderOfEqualKeys() {
+        try (CompactPathStore store = new CompactPathStore(0)) {
+            List<Path> expected = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                store.add(Path.of("/data", "file" + i + ".txt"), i % 7);
+            }
+            for (int key = 0; key < 7; key++) {
+                for (int i = key; i < 10_000; i += 7) {
+                    expected.add(Path.of("/data", "file" + i + ".txt"));
+                }
+            }
+
+            store.sortByKey();
+
+            assertEquals(expected, new ArrayList<>(store));
+        }
+    }
+
+    @Test
+    void testSortWithComparatorKeepsKeys() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            store.add(Path.of("/data/c.txt"), 3);
+            store.add(Path.of("/data/a.txt"), 1);
+            store.add(Path.of("/data/b.txt"), 2);
+
+            store.sort(Comparator.comparing(Path::toString).reversed());
+
+            assertEquals(List.of(Path.of("/data/c.txt"), Path.of("/data/b.txt"), Path.of("/data/a.txt")), store);
+            assertEquals(2, store.getKey(1));
+        }
+    }
+
+    @Test
+    void testSetReplacesPathAndKeepsKey() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            store.add(Path.of("/data/a.txt"), 5);
+
+            assertEquals(Path.of("/data/a.txt"), store.set(0, Path.of("/other/b.txt")));
+            assertEquals(Path.of("/other/b.txt"), store.get(0));
+            assertEquals(5, store.getKey(0));
+        }
+    }
+
+    @Test
+    void testRemoveAndRemoveIfShiftEntries() {
+        try (CompactPathStore store = new CompactPathStore(0)) {
+            for (int i = 0; i < 10_000; i++) {
+                store.add(Path.of("/data", "file" + i + ".txt"), i);
+            }
+
+            assertEquals(Path.of("/data/file0.txt"), store.remove(0));
+            assertTrue(store.removeIf(path -> !path.getFileName().toString().endsWith("9.txt")));
+
+            assertEquals(1_000, store.size());
+            assertEquals(Path.of("/data/file9.txt"), store.get(0));
+            assertEquals(9_999, store.getKey(999));
+            assertFalse(store.removeIf(path -> false));
+        }
+    }
+
+    @Test
+    void testRepeatedSortsReuseSpilledSegments() {
+        try (CompactPathStore store = new CompactPathStore(0)) {
+            for (int i = 0; i < 100_000; i++) {
+                store.add(Path.of("/data", "dir" + (i % 13), "file" + i + ".xml"), 100_000 - i);
+            }
+            store.sortByKey();
+            long spillBytes = store.getSpillBytes();
+
+            for (int i = 0; i < 3; i++) {
+                store.sortByKey();
+                store.sort(Comparator.comparing(Path::toString));
+            }
+            store.removeIf(path -> path.getFileName().toString().startsWith("file1"));
+            store.sortByKey();
+
+            assertEquals(spillBytes, store.getSpillBytes());
+            for (int i = 1; i < store.size(); i++) {
+                assertTrue(store.getKey(i - 1) <= store.getKey(i));
+            }
+        }
+    }
+
+    @Test
+    void testAddAtSizeAppends() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            store.add(0, Path.of("/data/first.txt"));
+            store.add(store.size(), Path.of("/data/second.txt"));
+
+            assertEquals(List.of(Path.of("/data/first.txt"), Path.of("/data/second.txt")), store);
+            assertThrows(UnsupportedOperationException.class, () -> store.add(0, Path.of("/data/third.txt")));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.add(3, Path.of("/data/third.txt")));
+        }
+    }
+
+    @Test
+    void testClearRemovesAllEntries() {
+        CompactPathStore store = new CompactPathStore(0);
+        store.add(Path.of("/data/file.txt"));
+
+        store.clear();
+
+        assertTrue(store.isEmpty());
+        assertFalse(store.isSpilled());
+    }
+
+    @Test
+    void testGetOutOfRangeMustTrow() {
+        try (CompactPathStore store = new CompactPathStore()) {
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(0));
+        }
+    }
+
+    @Test
+    void testNegativeThresholdMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> new CompactPathStore(-1));
+    }
+}
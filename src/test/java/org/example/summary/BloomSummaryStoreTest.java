@@ -0,0 +1,248 @@
+package org.example.summary;
+
+import org.example.cache.SearchCache;
+import org.example.finder.SearchOptions;
+import org.example.finder.TextFinder;
+import org.example.scheduler.IoScheduler;
+import org.example.scheduler.ReadOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomSummaryStoreTest {
+
+    private static final String PATH = "src/test/resources";
+
+    Path tempDir;
+    Path storeDir;
+    Path subDir;
+    Path tempFile1;
+    Path tempFile2;
+    BloomSummaryStore summaryStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory(Path.of(PATH), "test");
+        storeDir = Files.createTempDirectory(Path.of(PATH), "store");
+        subDir = Files.createDirectory(tempDir.resolve("sub"));
+
+        tempFile1 = Files.createTempFile(tempDir, "testfile1", ".txt");
+        Files.write(tempFile1, "This is a sample file for testing. Lorem ipsum".getBytes());
+
+        tempFile2 = Files.createTempFile(subDir, "testfile2", ".txt");
+        Files.write(tempFile2, "demo".getBytes());
+
+        summaryStore = new BloomSummaryStore(storeDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Path dir : List.of(tempDir, storeDir)) {
+            try (Stream<Path> pathStream = Files.walk(dir)) {
+                pathStream
+                        .sorted(Comparator.reverseOrder())
+                        .map(Path::toFile)
+                        .forEach(File::delete);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private List<Path> search(String text) {
+        return TextFinder.findText(text, tempDir.toString(), SearchOptions.builder().summaryStore(summaryStore).build());
+    }
+
+    @Test
+    void testSearchWritesSummaryForEveryDirectory() throws IOException {
+        search("Lorem");
+
+        try (Stream<Path> summaries = Files.list(storeDir)) {
+            assertEquals(2, summaries.count());
+        }
+    }
+
+    @Test
+    void testScheduledSearchWritesSummaryForEveryDirectory() {
+        try (IoScheduler ioScheduler = new IoScheduler(ReadOrder.INODE, 2, 4)) {
+            assertEquals(List.of(tempFile1), TextFinder.findText("Lorem", tempDir.toString(),
+                    SearchOptions.builder().ioScheduler(ioScheduler).summaryStore(summaryStore).build()));
+        }
+
+        assertTrue(summaryStore.lookup("BMW E92").rulesOut(tempDir));
+        assertFalse(summaryStore.lookup("demo").rulesOut(tempDir));
+        assertTrue(summaryStore.lookup("testing").rulesOut(subDir));
+    }
+
+    @Test
+    void testSummariesRuleOutAbsentText() {
+        search("Lorem");
+
+        assertTrue(summaryStore.lookup("BMW E92").rulesOut(tempDir));
+        assertTrue(summaryStore.lookup("BMW E92").rulesOut(subDir));
+    }
+
+    @Test
+    void testSummariesDoNotRuleOutPresentText() {
+        search("Lorem");
+
+        assertFalse(summaryStore.lookup("testing").rulesOut(tempDir));
+        assertFalse(summaryStore.lookup("demo").rulesOut(tempDir));
+        assertTrue(summaryStore.lookup("testing").rulesOut(subDir));
+    }
+
+    @Test
+    void testSearchWithSummariesFindsSameFiles() {
+        assertEquals(List.of(tempFile2), search("demo"));
+        assertEquals(List.of(tempFile2), search("demo"));
+        assertEquals(List.of(tempFile1), search("Lorem ipsum"));
+        assertTrue(search("BMW E92").isEmpty());
+    }
+
+    @Test
+    void testRuledOutSubtreeIsNotVisited() {
+        List<Path> visited = new ArrayList<>();
+        List<Path> read = new ArrayList<>();
+        SearchCache countingCache = new SearchCache() {
+            @Override
+            public void walkFileTree(Path start, FileVisitor<? super Path> visitor) throws IOException {
+                super.walkFileTree(start, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        return visitor.preVisitDirectory(dir, attrs);
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        visited.add(file);
+                        return visitor.visitFile(file, attrs);
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                        return visitor.visitFileFailed(file, exc);
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                        return visitor.postVisitDirectory(dir, exc);
+                    }
+                });
+            }
+
+            @Override
+            public boolean containsText(Path file, BasicFileAttributes attrs, String text, Predicate<Path> matcher) {
+                return super.containsText(file, attrs, text, path -> {
+                    read.add(path);
+                    return matcher.test(path);
+                });
+            }
+        };
+        SearchOptions options = SearchOptions.builder().searchCache(countingCache).summaryStore(summaryStore).build();
+
+        assertEquals(List.of(tempFile1), TextFinder.findText("Lorem", tempDir.toString(), options));
+        assertTrue(visited.contains(tempFile2));
+        assertTrue(read.contains(tempFile2));
+
+        visited.clear();
+        read.clear();
+        assertTrue(TextFinder.findText("BMW E92", tempDir.toString(), options).isEmpty());
+        assertTrue(visited.stream().noneMatch(file -> file.startsWith(subDir)));
+        assertTrue(read.stream().noneMatch(file -> file.startsWith(subDir)));
+    }
+
+    @Test
+    void testModifiedFileInvalidatesSummary() throws IOException {
+        search("Lorem");
+
+        Files.write(tempFile2, "BMW E92".getBytes());
+        Files.setLastModifiedTime(tempFile2, FileTime.fromMillis(0));
+
+        assertFalse(summaryStore.lookup("BMW E92").rulesOut(subDir));
+        assertFalse(summaryStore.lookup("BMW E92").rulesOut(tempDir));
+        assertEquals(List.of(tempFile2), search("BMW E92"));
+    }
+
+    @Test
+    void testNewFileInvalidatesSummary() throws IOException {
+        search("Lorem");
+
+        Files.write(subDir.resolve("new.txt"), "BMW E92".getBytes());
+        Files.setLastModifiedTime(subDir, FileTime.fromMillis(0));
+
+        assertFalse(summaryStore.lookup("BMW E92").rulesOut(tempDir));
+    }
+
+    @Test
+    void testValidSummaryIsCurrent() throws IOException {
+        assertFalse(summaryStore.lookup("demo").isCurrent(subDir));
+
+        search("Lorem");
+        assertTrue(summaryStore.lookup("demo").isCurrent(subDir));
+        assertTrue(summaryStore.lookup("zq").isCurrent(tempDir));
+
+        Files.write(tempFile2, "BMW E92".getBytes());
+        Files.setLastModifiedTime(tempFile2, FileTime.fromMillis(0));
+        assertFalse(summaryStore.lookup("demo").isCurrent(subDir));
+    }
+
+    @Test
+    void testValidSummaryIsNotRewritten() throws IOException {
+        search("Lorem");
+        List<Path> summaries;
+        try (Stream<Path> summaryStream = Files.list(storeDir)) {
+            summaries = summaryStream.toList();
+        }
+        for (Path summary : summaries) {
+            Files.setLastModifiedTime(summary, FileTime.fromMillis(0));
+        }
+
+        assertEquals(List.of(tempFile1), search("Lorem"));
+
+        for (Path summary : summaries) {
+            assertEquals(FileTime.fromMillis(0), Files.getLastModifiedTime(summary));
+        }
+    }
+
+    @Test
+    void testStaleSummaryIsRewritten() throws IOException {
+        search("Lorem");
+
+        Files.write(tempFile2, "BMW E92".getBytes());
+        Files.setLastModifiedTime(tempFile2, FileTime.fromMillis(0));
+        search("Lorem");
+
+        assertTrue(summaryStore.lookup("BMW E92").isCurrent(subDir));
+        assertTrue(summaryStore.lookup("demo").rulesOut(subDir));
+        assertFalse(summaryStore.lookup("BMW E92").rulesOut(subDir));
+    }
+
+    @Test
+    void testShortTextIsNeverRuledOut() {
+        search("Lorem");
+
+        assertFalse(summaryStore.lookup("zq").rulesOut(tempDir));
+    }
+
+    @Test
+    void testDirectoryWithoutSummaryIsNotRuledOut() {
+        assertFalse(summaryStore.lookup("BMW E92").rulesOut(tempDir));
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.visitor;
 
+import org.example.cache.SearchCache;
+import org.example.finder.SearchOptions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,13 +12,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -264,4 +271,156 @@ class FileTextRecognitionVisitorTest {
 
         assertNotNull(files);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHardlinksAreReportedForEveryPath() throws IOException {
+        Path link = tempDir.resolve("hardlink.txt");
+        Files.createLink(link, testFile.toPath());
+        AtomicInteger scans = new AtomicInteger();
+        visitor = new FileTextRecognitionVisitor("Lorem", countingCache(scans), Deduplication.FILE_KEY);
+
+        Files.walkFileTree(tempDir, visitor);
+
+        List<Path> files = visitor.getFileContainsText();
+        assertEquals(2, files.size());
+        assertTrue(files.containsAll(List.of(testFile.toPath(), link)));
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    void testSteadyStateVisitFileAllocatesLittle() throws IOException {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Path file = testFile.toPath();
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        visitor = new FileTextRecognitionVisitor("BMW E92");
+        long threadId = Thread.currentThread().getId();
+        int visits = 5_000;
+
+        for (int i = 0; i < visits; i++) {
+            visitor.visitFile(file, attrs);
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < visits; i++) {
+            visitor.visitFile(file, attrs);
+        }
+        long allocatedPerVisit = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / visits;
+
+        assertTrue(allocatedPerVisit < 512, "Allocated " + allocatedPerVisit + " bytes per visit");
+    }
+
+    @Test
+    void testOptionsSelectCacheAndDeduplication() throws IOException {
+        Files.createLink(tempDir.resolve("hardlink.txt"), testFile.toPath());
+        AtomicInteger scans = new AtomicInteger();
+        visitor = new FileTextRecognitionVisitor("Lorem", SearchOptions.builder()
+                .searchCache(countingCache(scans))
+                .deduplication(Deduplication.FILE_KEY)
+                .build());
+
+        Files.walkFileTree(tempDir, visitor);
+
+        assertEquals(2, visitor.getFileContainsText().size());
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    void testConstructorWithoutOptionsMustTrow() {
+        assertThrows(IllegalArgumentException.class, () -> new FileTextRecognitionVisitor("Lorem", (SearchOptions) null));
+    }
+
+    @Test
+    void testHardlinksAreScannedPerPathWithoutDeduplication() throws IOException {
+        Files.createLink(tempDir.resolve("hardlink.txt"), testFile.toPath());
+        AtomicInteger scans = new AtomicInteger();
+        visitor = new FileTextRecognitionVisitor("Lorem", countingCache(scans), Deduplication.NONE);
+
+        Files.walkFileTree(tempDir, visitor);
+
+        assertEquals(2, visitor.getFileContainsText().size());
+        assertEquals(2, scans.get());
+    }
+
+    @Test
+    void testSymbolicLinkToFileIsScannedOnce() throws IOException {
+        Path link = Files.createSymbolicLink(tempDir.resolve("symlink.txt"), testFile.toPath().toAbsolutePath());
+        AtomicInteger scans = new AtomicInteger();
+        visitor = new FileTextRecognitionVisitor("Lorem", countingCache(scans), Deduplication.FILE_KEY);
+
+        Files.walkFileTree(tempDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, visitor);
+
+        assertTrue(visitor.getFileContainsText().containsAll(List.of(testFile.toPath(), link)));
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    void testSymbolicLinkLoopIsSkipped() throws IOException {
+        Files.createSymbolicLink(tempDir.resolve("loop"), tempDir.toAbsolutePath());
+        visitor = new FileTextRecognitionVisitor("Lorem", null, Deduplication.FILE_KEY);
+
+        Files.walkFileTree(tempDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, visitor);
+
+        assertEquals(List.of(testFile.toPath()), visitor.getFileContainsText());
+    }
+
+    @Test
+    void testIdenticalCopiesAreReadOncePerPath() throws IOException {
+        Path copy = Files.copy(testFile.toPath(), tempDir.resolve("copy.txt"));
+        Path sameSize = tempDir.resolve("same-size.txt");
+        Files.write(sameSize, "x".repeat((int) Files.size(copy)).getBytes());
+        AtomicInteger scans = new AtomicInteger();
+        visitor = new FileTextRecognitionVisitor("Lorem", countingCache(scans), Deduplication.CONTENT);
+
+        Files.walkFileTree(tempDir, visitor);
+
+        List<Path> files = visitor.getFileContainsText();
+        assertEquals(2, files.size());
+        assertTrue(files.containsAll(List.of(testFile.toPath(), copy)));
+        assertEquals(3, scans.get());
+    }
+
+    @Test
+    void testArchiveIsRecognizedFromTheScanningRead() throws IOException {
+        Path archive = Files.copy(tempZipFile.toPath(), tempDir.resolve("archive.zip"));
+        visitor = new FileTextRecognitionVisitor("ZIP file");
+
+        Files.walkFileTree(tempDir, visitor);
+
+        assertEquals(List.of(archive), visitor.getFileContainsText());
+    }
+
+    @Test
+    void testIdenticalArchiveCopiesAreUnpackedOnce() throws IOException {
+        Path archive = Files.copy(tempZipFile.toPath(), tempDir.resolve("archive.zip"));
+        Path copy = Files.copy(archive, tempDir.resolve("copy.zip"));
+        AtomicInteger unpacked = new AtomicInteger();
+        visitor = new FileTextRecognitionVisitor("ZIP file", null, Deduplication.CONTENT) {
+            @Override
+            List<Path> processCompressedFile(Path compressedFilePath) {
+                unpacked.incrementAndGet();
+                return super.processCompressedFile(compressedFilePath);
+            }
+        };
+
+        Files.walkFileTree(tempDir, visitor);
+
+        assertTrue(visitor.getFileContainsText().containsAll(List.of(archive, copy)));
+        assertEquals(1, unpacked.get());
+    }
+
+    /**
+     * Creates a cache that counts how often a file is actually scanned. Results are cached per path, so every path
+     * the visitor does not deduplicate is scanned.
+     */
+    private static SearchCache countingCache(AtomicInteger scans) {
+        return new SearchCache() {
+            @Override
+            public boolean containsText(Path file, BasicFileAttributes attrs, String text, Predicate<Path> matcher) {
+                return super.containsText(file, attrs, text, f -> {
+                    scans.incrementAndGet();
+                    return matcher.test(f);
+                });
+            }
+        };
+    }
+}
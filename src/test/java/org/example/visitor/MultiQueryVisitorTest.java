@@ -0,0 +1,129 @@
+package org.example.visitor;
+
+import org.example.finder.SearchQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiQueryVisitorTest {
+
+    private static final String PATH = "src/test/resources";
+
+    Path tempDir;
+    Path tempFile1;
+    Path tempFile2;
+    Path tempFile3;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory(Path.of(PATH), "test");
+        tempFile1 = Files.createTempFile(tempDir, "testfile1", ".txt");
+        Files.write(tempFile1, "This is a sample file for testing. Lorem ipsum".getBytes());
+
+        tempFile2 = Files.createTempFile(tempDir, "testfile2", ".txt");
+        Files.write(tempFile2, "demo".getBytes());
+
+        tempFile3 = Files.createTempFile(tempDir, "testfile3", ".xml");
+        Files.write(tempFile3, "demo\nLorem ipsum".getBytes());
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void testEveryQueryGetsItsOwnResult() throws IOException {
+        MultiQueryVisitor visitor = new MultiQueryVisitor(List.of(
+                new SearchQuery("demo"), new SearchQuery("Lorem"), new SearchQuery("BMW E92")));
+
+        Files.walkFileTree(tempDir, visitor);
+        List<List<Path>> results = visitor.getResults();
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(0).size());
+        assertTrue(results.get(0).containsAll(List.of(tempFile2, tempFile3)));
+        assertEquals(2, results.get(1).size());
+        assertTrue(results.get(1).containsAll(List.of(tempFile1, tempFile3)));
+        assertTrue(results.get(2).isEmpty());
+    }
+
+    @Test
+    void testFileNameGlobFiltersFiles() throws IOException {
+        MultiQueryVisitor visitor = new MultiQueryVisitor(List.of(new SearchQuery("demo", "*.xml", 10)));
+
+        Files.walkFileTree(tempDir, visitor);
+
+        assertEquals(List.of(tempFile3), visitor.getResults().get(0));
+    }
+
+    @Test
+    void testQueryIsRetiredAtItsLimit() throws IOException {
+        MultiQueryVisitor visitor = new MultiQueryVisitor(List.of(
+                new SearchQuery("demo", null, 1), new SearchQuery("Lorem")));
+
+        Files.walkFileTree(tempDir, visitor);
+        List<List<Path>> results = visitor.getResults();
+
+        assertEquals(1, results.get(0).size());
+        assertEquals(2, results.get(1).size());
+    }
+
+    @Test
+    void testEveryFileIsReadOnceForAllQueries() throws IOException {
+        Map<Path, Integer> scans = new HashMap<>();
+        MultiQueryVisitor visitor = new MultiQueryVisitor(List.of(
+                new SearchQuery("demo"), new SearchQuery("Lorem"), new SearchQuery("BMW E92"))) {
+            @Override
+            BitSet scan(Path file, List<PooledTextScanner> scanners) throws IOException {
+                scans.merge(file, 1, Integer::sum);
+                assertEquals(3, scanners.size());
+                return super.scan(file, scanners);
+            }
+        };
+
+        Files.walkFileTree(tempDir, visitor);
+
+        assertEquals(Map.of(tempFile1, 1, tempFile2, 1, tempFile3, 1), scans);
+        assertEquals(2, visitor.getResults().get(0).size());
+    }
+
+    @Test
+    void testZipEntriesAreMatched() throws IOException {
+        Path zip = tempDir.resolve("archive.zip");
+        try (ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zip.toFile()))) {
+            zipOut.putNextEntry(new ZipEntry("sample.txt"));
+            zipOut.write("This is some sample test data for the ZIP file.".getBytes());
+            zipOut.closeEntry();
+        }
+        MultiQueryVisitor visitor = new MultiQueryVisitor(List.of(new SearchQuery("ZIP file"), new SearchQuery("demo")));
+
+        Files.walkFileTree(tempDir, visitor);
+        List<List<Path>> results = visitor.getResults();
+
+        assertEquals(List.of(zip), results.get(0));
+        assertFalse(results.get(1).contains(zip));
+    }
+}
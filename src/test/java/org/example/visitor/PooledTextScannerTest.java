@@ -0,0 +1,125 @@
+package org.example.visitor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledTextScannerTest {
+
+    private static final String PATH = "src/test/resources";
+
+    Path tempDir;
+    Path tempFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory(Path.of(PATH), "test");
+        tempFile = Files.createTempFile(tempDir, "testfile", ".txt");
+        Files.write(tempFile, "This is a sample file for testing. Lorem ipsum\nVersion: 1.0.0".getBytes());
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void testContainsTextInFile() throws IOException {
+        assertTrue(new PooledTextScanner("Lorem ipsum").containsText(tempFile));
+        assertTrue(new PooledTextScanner("Version").containsText(tempFile));
+        assertFalse(new PooledTextScanner("BMW E92").containsText(tempFile));
+    }
+
+    @Test
+    void testTextAcrossLinesIsNotFound() throws IOException {
+        assertFalse(new PooledTextScanner("ipsum\nVersion").containsText(tempFile));
+    }
+
+    @Test
+    void testNullOrEmptyTextIsNotFound() throws IOException {
+        assertFalse(new PooledTextScanner(null).containsText(tempFile));
+        assertFalse(new PooledTextScanner("").containsText(tempFile));
+    }
+
+    @Test
+    void testMatchAcrossBufferBoundaryIsFound() throws IOException {
+        byte[] content = new byte[PooledTextScanner.BUFFER_SIZE + 10];
+        Arrays.fill(content, (byte) 'x');
+        System.arraycopy("needle".getBytes(), 0, content, PooledTextScanner.BUFFER_SIZE - 3, 6);
+        Files.write(tempFile, content);
+
+        assertTrue(new PooledTextScanner("needle").containsText(tempFile));
+        assertTrue(new PooledTextScanner("needle").containsText(new ByteArrayInputStream(content)));
+    }
+
+    @Test
+    void testLongTextIsFound() throws IOException {
+        String text = "y".repeat(PooledTextScanner.BUFFER_SIZE);
+        Files.write(tempFile, ("x" + text + "x").getBytes());
+
+        assertTrue(new PooledTextScanner(text).containsText(tempFile));
+    }
+
+    @Test
+    void testContainsTextInStream() throws IOException {
+        assertTrue(new PooledTextScanner("sample").containsText(new ByteArrayInputStream("a sample".getBytes())));
+        assertFalse(new PooledTextScanner("sample").containsText(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    void testContainsTextsFindsEveryTextInOneRead() throws IOException {
+        byte[] content = new byte[2 * PooledTextScanner.BUFFER_SIZE];
+        Arrays.fill(content, (byte) 'x');
+        System.arraycopy("needle".getBytes(), 0, content, PooledTextScanner.BUFFER_SIZE - 3, 6);
+        System.arraycopy("pin".getBytes(), 0, content, content.length - 3, 3);
+        Files.write(tempFile, content);
+        List<PooledTextScanner> scanners = List.of(new PooledTextScanner("needle"), new PooledTextScanner("BMW E92"),
+                new PooledTextScanner("pin"), new PooledTextScanner(""));
+
+        BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(2);
+        assertEquals(expected, PooledTextScanner.containsTexts(tempFile, scanners));
+        assertEquals(expected, PooledTextScanner.containsTexts(new ByteArrayInputStream(content), scanners));
+    }
+
+    @Test
+    void testSteadyStateScanAllocatesAlmostNothing() throws IOException {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        PooledTextScanner scanner = new PooledTextScanner("BMW E92");
+        long threadId = Thread.currentThread().getId();
+        int scans = 5_000;
+
+        for (int i = 0; i < scans; i++) {
+            scanner.containsText(tempFile);
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < scans; i++) {
+            scanner.containsText(tempFile);
+        }
+        long allocatedPerScan = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / scans;
+
+        assertTrue(allocatedPerScan < 1024, "Allocated " + allocatedPerScan + " bytes per scan");
+    }
+}